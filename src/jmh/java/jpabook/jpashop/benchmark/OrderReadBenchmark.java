@@ -0,0 +1,116 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.JpashopApplication;
+import jpabook.jpashop.api.OrderApiController;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 조회 V3 ~ V6 비교
+ * - OrderApiController 주석의 V4/V5/V6, batch fetch size 100/1000 비교를 실제로 측정한다.
+ * - datagen 프로필(DataGenerator)로 메모리 H2 에 데이터를 넣은 뒤, 컨트롤러 메서드를 (OSIV 대신) 읽기 전용 트랜잭션 안에서 호출한다.
+ * - 처리량(thrpt), 평균 지연(avgt), gc 프로파일러의 gc.alloc.rate.norm(1회 할당량)을 함께 본다.
+ * - @Param 조합마다 스프링 컨텍스트를 새로 띄운다. (batch fetch size 는 SessionFactory 설정이라)
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OrderReadBenchmark {
+
+    @Param({"1000"})
+    public int memberCount;
+
+    @Param({"1000"})
+    public int itemCount;
+
+    @Param({"10000"})
+    public int orderCount;
+
+    @Param({"3"})
+    public double avgLinesPerOrder;
+
+    @Param({"1.1"})
+    public double itemSkew;
+
+    @Param({"100", "1000"})
+    public int batchFetchSize;
+
+    @Param({"100"})
+    public int pageSize; //V3.1, V6.1 한 페이지 주문 수
+
+    private ConfigurableApplicationContext context;
+    private OrderApiController controller;
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(JpashopApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("datagen")
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.open-in-view=false",
+                        "spring.jpa.properties.hibernate.default_batch_fetch_size=" + batchFetchSize,
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "jpashop.datagen.member-count=" + memberCount,
+                        "jpashop.datagen.item-count=" + itemCount,
+                        "jpashop.datagen.order-count=" + orderCount,
+                        "jpashop.datagen.avg-lines-per-order=" + avgLinesPerOrder,
+                        "jpashop.datagen.item-skew=" + itemSkew,
+                        "decorator.datasource.enabled=false", //p6spy 로깅 제외
+                        "logging.level.root=warn",
+                        "logging.level.org.hibernate.SQL=off")
+                .run();
+
+        controller = context.getBean(OrderApiController.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //V3 엔티티 페치 조인(컬렉션 포함) -> DTO, 페이징 불가
+    @Benchmark
+    public void v3_fetchJoin(Blackhole bh) {
+        bh.consume(readOnly.execute(s -> controller.ordersV3()));
+    }
+
+    //V3.1 ToOne 페치 조인 + 컬렉션 batch fetch, 주문 페이징
+    @Benchmark
+    public void v3_1_batchFetch(Blackhole bh) {
+        bh.consume(readOnly.execute(s -> controller.ordersV3_page(0, pageSize)));
+    }
+
+    //V4 DTO 조회, 컬렉션 N 번
+    @Benchmark
+    public void v4_queryDtos(Blackhole bh) {
+        bh.consume(readOnly.execute(s -> controller.ordersV4()));
+    }
+
+    //V5 DTO 조회, 컬렉션 IN 조회 1번(chunk)
+    @Benchmark
+    public void v5_optimization(Blackhole bh) {
+        bh.consume(readOnly.execute(s -> controller.ordersV5()));
+    }
+
+    //V6 플랫 조회 1번 + groupingBy 조립
+    @Benchmark
+    public void v6_flat(Blackhole bh) {
+        bh.consume(readOnly.execute(s -> controller.ordersV6()));
+    }
+
+    //V6.1 주문 id 윈도우 플랫 조회 + OrderFlatAssembler 조립
+    @Benchmark
+    public void v6_1_flatPage(Blackhole bh) {
+        bh.consume(readOnly.execute(s -> controller.ordersV6_page(0, pageSize)));
+    }
+}
@@ -3,6 +3,7 @@ package jpabook.jpashop;
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Book;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,6 +20,7 @@ import javax.persistence.EntityManager;
  * * SPRING2 BOOK
  */
 @Component
+@Profile("!datagen") //datagen 프로필은 DataGenRunner 가 대량 데이터를 넣는다.
 @RequiredArgsConstructor
 public class InitDb {
 
@@ -43,17 +45,20 @@ public class InitDb {
             em.persist(member);
 
             Book book1 = createBook("JPA1 BOOK", 10000, 100);
-            em.persist(book1);
 
             Book book2 = createBook("JPA2 BOOK", 20000, 100);
-            em.persist(book2);
 
             OrderItem orderItem1 = OrderItem.createOrderItem(book1, 10000, 1);
             OrderItem orderItem2 = OrderItem.createOrderItem(book2, 20000, 2);
 
+            //재고는 변경감지로 쓰지 않으므로(Item.stockQuantity) 주문 수량만큼 줄인 뒤에 저장한다.
+            em.persist(book1);
+            em.persist(book2);
+
             Delivery delivery = createDelivery(member);
             Order order = Order.createOrder(member, delivery, orderItem1, orderItem2);
             em.persist(order);
+            em.persist(OrderSummary.createOrderSummary(order));
         }
 
         public void dbInit2() {
@@ -61,17 +66,19 @@ public class InitDb {
             em.persist(member);
 
             Book book1 = createBook("SPRING1 BOOK", 20000, 200);
-            em.persist(book1);
 
             Book book2 = createBook("SPRING2 BOOK", 40000, 300);
-            em.persist(book2);
 
             OrderItem orderItem1 = OrderItem.createOrderItem(book1, 20000, 3);
             OrderItem orderItem2 = OrderItem.createOrderItem(book2, 40000, 4);
 
+            em.persist(book1);
+            em.persist(book2);
+
             Delivery delivery = createDelivery(member);
             Order order = Order.createOrder(member, delivery, orderItem1, orderItem2);
             em.persist(order);
+            em.persist(OrderSummary.createOrderSummary(order));
         }
 
         private Member createMember(String name, String city, String street, String zipcode) {
@@ -0,0 +1,49 @@
+package jpabook.jpashop.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+@RestController
+@RequiredArgsConstructor
+public class CacheApiController {
+
+    private final EntityManagerFactory emf;
+
+    /**
+     * 2차 캐시 영역별 hit/miss 조회
+     * - hibernate.generate_statistics 가 켜져 있어야 집계된다.
+     */
+    @GetMapping("/api/v1/cache-stats")
+    public List<CacheRegionStatsDto> cacheStatsV1() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .map(region -> new CacheRegionStatsDto(region, statistics.getDomainDataRegionStatistics(region)))
+                .collect(toList());
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CacheRegionStatsDto {
+        private String region;
+        private long hitCount;
+        private long missCount;
+        private long putCount;
+
+        public CacheRegionStatsDto(String region, CacheRegionStatistics statistics) {
+            this(region, statistics.getHitCount(), statistics.getMissCount(), statistics.getPutCount());
+        }
+    }
+}
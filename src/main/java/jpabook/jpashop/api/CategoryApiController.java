@@ -0,0 +1,64 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.repository.ItemView;
+import jpabook.jpashop.service.CategoryNode;
+import jpabook.jpashop.service.CategoryService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class CategoryApiController {
+
+    private final CategoryService categoryService;
+
+    @PostMapping("/api/v1/categories")
+    public CreateCategoryResponse saveCategoryV1(@RequestBody @Valid CreateCategoryRequest request) {
+        Long id = categoryService.create(request.getName(), request.getParentId());
+
+        return new CreateCategoryResponse(id);
+    }
+
+    @PostMapping("/api/v1/categories/{id}/items/{itemId}")
+    public void addItemV1(@PathVariable("id") Long id, @PathVariable("itemId") Long itemId) {
+        categoryService.addItem(id, itemId);
+    }
+
+    /**
+     * 카테고리 트리 - 메모리에 캐시된 트리를 그대로 돌려준다.
+     */
+    @GetMapping("/api/v1/categories")
+    public List<CategoryNode> categoriesV1() {
+        return categoryService.getTree();
+    }
+
+    /**
+     * 하위 카테고리를 모두 포함한 상품 목록
+     * - 클로저 테이블로 하위 트리를 찾으므로 깊이와 상관없이 쿼리 1번
+     */
+    @GetMapping("/api/v1/categories/{id}/items")
+    public List<ItemView> categoryItemsV1(@PathVariable("id") Long id,
+                                          @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                          @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return categoryService.findItems(id, offset, limit);
+    }
+
+    @Data
+    static class CreateCategoryRequest {
+        @NotEmpty
+        private String name;
+        private Long parentId; //없으면 최상위 카테고리
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CreateCategoryResponse {
+        private Long id;
+    }
+}
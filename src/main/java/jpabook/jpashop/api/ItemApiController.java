@@ -0,0 +1,41 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.Item;
+import jpabook.jpashop.service.ItemService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+public class ItemApiController {
+
+    private final ItemService itemService;
+
+    /**
+     * 재고 분할 설정
+     * - 플래시 세일 상품처럼 주문이 몰리는 상품의 재고를 여러 row 로 나누어 쓰기 경합을 줄인다.
+     * - shardCount 0 이면 분할 해제
+     */
+    @PutMapping("/api/v1/items/{id}/stock-shards")
+    public ItemStockResponse shardStockV1(@PathVariable("id") Long id, @RequestBody StockShardRequest request) {
+        itemService.shardStock(id, request.getShardCount());
+        Item item = itemService.findOne(id);
+
+        return new ItemStockResponse(item.getId(), item.getStockQuantity(), item.getStockShardCount());
+    }
+
+    @Data
+    static class StockShardRequest {
+        private int shardCount;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class ItemStockResponse {
+        private Long id;
+        private int stockQuantity;
+        private int stockShardCount;
+    }
+}
@@ -1,6 +1,9 @@
 package jpabook.jpashop.api;
 
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.member.query.MemberQueryDto;
+import jpabook.jpashop.repository.member.query.MemberQueryRepository;
+import jpabook.jpashop.service.MemberJoinResult;
 import jpabook.jpashop.service.MemberService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -8,6 +11,9 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -16,6 +22,7 @@ import java.util.stream.Collectors;
 public class MemberApiController {
 
     private final MemberService memberService;
+    private final MemberQueryRepository memberQueryRepository;
 
     /**
      * 등록 V1: 요청 값으로 Member 엔티티를 직접 받는다.
@@ -44,6 +51,34 @@ public class MemberApiController {
         return new CreateMemberResponse(id);
     }
 
+    /**
+     * 일괄 등록: 대량 회원(파트너 연동 등)을 한번에 등록한다.
+     * - 건건이 V2 를 호출하면 행마다 중복 조회 + insert + commit 이 일어난다.
+     * - 중복 체크는 chunk 마다 IN 쿼리 한번, insert 는 JDBC 배치로 처리하고 행 단위 결과를 돌려준다.
+     */
+    @PostMapping("/api/v2/members/bulk")
+    public BulkCreateMemberResponse saveMembersV2(@RequestBody @Valid BulkCreateMemberRequest request) {
+        List<Member> members = request.getMembers().stream()
+                .map(r -> {
+                    Member member = new Member();
+                    member.setName(r.getName());
+                    return member;
+                })
+                .collect(Collectors.toList());
+
+        List<MemberJoinResult> results = memberService.joinAll(members);
+
+        List<BulkCreateMemberResult> collect = new ArrayList<>(results.size());
+        int joinedCount = 0;
+        for (int i = 0; i < results.size(); i++) {
+            MemberJoinResult result = results.get(i);
+            if (result.getStatus() == MemberJoinResult.Status.JOINED) joinedCount++;
+            collect.add(new BulkCreateMemberResult(i, result.getName(), result.getMemberId(), result.getStatus()));
+        }
+
+        return new BulkCreateMemberResponse(joinedCount, results.size() - joinedCount, collect);
+    }
+
     /**
      * 수정 API
      */
@@ -88,6 +123,32 @@ public class MemberApiController {
         return new Result(collect.size(), collect);
     }
 
+    /**
+     * 조회 V3: 페이징 + DTO 직접 조회
+     * - V2 는 전체 회원 엔티티를 메모리에 올린 뒤 DTO 로 변환하고, count 도 전체 목록 크기로 계산한다.
+     * - 필요한 컬럼만 DTO 로 바로 조회하고(afterId 키셋 페이징), count 는 요청할 때만 캐시된 대략값을 준다.
+     */
+    @GetMapping("/api/v3/members")
+    public MemberPage<MemberQueryDto> membersV3(@RequestParam(value = "afterId", required = false) Long afterId,
+                                                @RequestParam(value = "limit", defaultValue = "100") int limit,
+                                                @RequestParam(value = "withCount", defaultValue = "false") boolean withCount) {
+        int size = Math.min(Math.max(limit, 1), 1000);
+        List<MemberQueryDto> members = memberQueryRepository.findMemberQueryDtos(afterId, size);
+
+        Long nextAfterId = members.size() < size ? null : members.get(members.size() - 1).getId();
+        Long count = withCount ? memberQueryRepository.countApproximately() : null;
+
+        return new MemberPage<>(count, members, nextAfterId);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class MemberPage<T> {
+        private Long count; //대략적인 전체 회원 수, withCount 일 때만
+        private List<T> data;
+        private Long nextAfterId; //다음 페이지 afterId, 마지막 페이지면 null
+    }
+
     @Data
     @AllArgsConstructor
     static class Result<T> {
@@ -118,6 +179,30 @@ public class MemberApiController {
         private String name;
     }
 
+    @Data
+    static class BulkCreateMemberRequest {
+        @NotEmpty
+        @Size(max = 100000)
+        private List<CreateMemberRequest> members;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class BulkCreateMemberResponse {
+        private int joinedCount;
+        private int failedCount;
+        private List<BulkCreateMemberResult> results;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class BulkCreateMemberResult {
+        private int index; //요청 members 의 순서
+        private String name;
+        private Long id;
+        private MemberJoinResult.Status status;
+    }
+
     @Data
     static class CreateMemberResponse {
         private Long id;
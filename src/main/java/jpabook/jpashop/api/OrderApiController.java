@@ -4,20 +4,35 @@ import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.jfr.OrderAssemblyEvent;
+import jpabook.jpashop.repository.OrderCursor;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.OrderFlatAssembler;
 import jpabook.jpashop.repository.order.query.OrderFlatDto;
 import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.OrderExportService;
+import jpabook.jpashop.service.OrderService;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static java.util.stream.Collectors.*;
 /* oneToMany 관겨시 조회*/
@@ -26,6 +41,7 @@ import static java.util.stream.Collectors.*;
  * 엔티티를 조회 후 DTO 로 변환 : V2
  * 페치 조인으로 쿼리 수 최적화 : V3
  * 컬렉션 페이징과 한계 돌파 : V3.1
+ * 키셋(커서) 페이징 : V3.2
  *      컬렉션은 페치 조인시 페이징 불가능
  *      ToOne 관계는 페치 조인으로 쿼리 수 최적화
  *      컬렉션은 페치 조인 대신에 지연 로딩을 유지하고, `default_batch_fetch_size`, `@BatchSize` 로 최적화
@@ -33,6 +49,7 @@ import static java.util.stream.Collectors.*;
  * JPA 에서 DTO 를 직접 조회 : V4
  * 컬렉션 조회 최적화 : 일대다 관계인 컬렉션은 IN 절을 활용해서 메모리에 미리 조회해서 최적화 : V5
  * 플랫 데이터 최적화 : JOIN 결과를 그대로 조회 후 애플리케이션에서 원하는 모양으로 직접 변환 : V6
+ * 플랫 데이터 + 주문 기준 페이징 : 주문 id 윈도우만 플랫 조인 후 정렬된 row 를 한번에 조립 : V6.1
  * */
 
 /*
@@ -87,13 +104,19 @@ import static java.util.stream.Collectors.*;
  * - 페이징 가능
  * V6. JPA에서 DTO로 바로 조회, 플랫 데이터(1Query) (1 Query)
  * - 페이징 불가능...
+ * V6.1 V6 + 주문 id 윈도우 페이징, 단일 패스 조립
+ * - 페이징 가능
  */
 @RestController
 @RequiredArgsConstructor
 public class OrderApiController {
 
+    private static final int MAX_CURSOR_LIMIT = 1000; //V3.2 한 페이지 최대 주문 수
+
     private final OrderRepository orderRepository;
     private final OrderQueryRepository orderQueryRepository;
+    private final OrderExportService orderExportService;
+    private final OrderService orderService;
 
     /**
      * V1. 엔티티 직접 노출
@@ -102,7 +125,7 @@ public class OrderApiController {
      */
     @GetMapping("/api/v1/orders")
     public List<Order> ordersV1() {
-        List<Order> all = orderRepository.findAllByString(new OrderSearch());
+        List<Order> all = orderRepository.findAllByString(OrderSearch.withMaxSize());
         for (Order order : all) {
             order.getMember().getName();
             order.getDelivery().getAddress();
@@ -117,7 +140,7 @@ public class OrderApiController {
 
     @GetMapping("/api/v2/orders")
     public List<OrderDto> ordersV2() {
-        List<Order> orders = orderRepository.findAllByString(new OrderSearch());
+        List<Order> orders = orderRepository.findAllByString(OrderSearch.withMaxSize());
 //        for (Order order : orders) {
 //            for (OrderItem item : order.getOrderItems()) {
 //                System.out.println("count = " + item.getCount());
@@ -147,9 +170,6 @@ public class OrderApiController {
         List<Order> orders = orderRepository.findAllWithItem();
 
         //repository 에 distinct 가 없으면 2 * 2 개가 중복없이 노출 된다.
-        for (Order order : orders) {
-            System.out.println("order ref = " + order + " id = " + order.getId());
-        }
         List<OrderDto> result = orders.stream()
                 .map(OrderDto::new)
                 .collect(toList());
@@ -175,9 +195,6 @@ public class OrderApiController {
         List<Order> orders = orderRepository.findAllWithMemberDelivery(offset, limit);
 
         //repository 에 distinct 가 없으면 2 * 2 개가 중복없이 노출 된다.
-        for (Order order : orders) {
-            System.out.println("order ref = " + order + " id = " + order.getId());
-        }
         List<OrderDto> result = orders.stream()
                 .map(OrderDto::new)
                 .collect(toList());
@@ -185,6 +202,38 @@ public class OrderApiController {
         return result;
     }
 
+    /**
+     * V3.2 키셋(커서) 페이징
+     * - V3.1 의 offset 페이징은 offset 이 커질수록 DB 가 앞의 row 를 읽고 버리는 비용이 늘어난다.
+     * - 마지막 주문의 (orderDate, orderId) 를 커서로 내려주고, 다음 요청은 그 다음 위치부터 인덱스로 바로 찾아간다.
+     * - 컬렉션은 V3.1 과 동일하게 default_batch_fetch_size 로 최적화
+     * - next 가 null 이면 마지막 페이지
+     * - limit 은 1 ~ MAX_CURSOR_LIMIT, 범위를 벗어나거나 커서가 잘못되면 400
+     */
+    @GetMapping("/api/v3.2/orders")
+    public OrderPage<OrderDto> ordersV3_cursor(@RequestParam(value = "cursor", required = false) String cursor,
+                                               @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        if (limit < 1 || limit > MAX_CURSOR_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit 은 1 ~ " + MAX_CURSOR_LIMIT + " 사이여야 합니다. limit = " + limit);
+        }
+
+        OrderCursor after;
+        try {
+            after = StringUtils.hasText(cursor) ? OrderCursor.decode(cursor) : null;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        List<Order> orders = orderRepository.findAllWithMemberDelivery(after, limit);
+
+        List<OrderDto> result = orders.stream()
+                .map(OrderDto::new)
+                .collect(toList());
+
+        String next = orders.size() < limit ? null : OrderCursor.of(orders.get(orders.size() - 1)).encode();
+
+        return new OrderPage<>(result, next);
+    }
+
     /**
      * query : 루트 1번, 컬렉션 N 번 실행
      * ToOne(N:1, 1:1) 관계들을 먼저 조회하고, ToMany(1:N) 관계는 각각 별도로 처리한다.
@@ -208,15 +257,136 @@ public class OrderApiController {
      */
     @GetMapping("/api/v6/orders")
     public List<OrderQueryDto> ordersV6() {
+        OrderAssemblyEvent event = OrderAssemblyEvent.start("V6_FLAT_QUERY");
         List<OrderFlatDto> flats = orderQueryRepository.findAllByDto_flat();
+        event.rows(flats.size()).commit();
 
-        //OrderQueryDto parse...
-        return flats.stream()
-                .collect(groupingBy(o -> new OrderQueryDto(o.getOrderId(), o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
+        //OrderQueryDto parse... (LinkedHashMap 으로 묶어서 플랫 조회의 주문 id 순서를 유지한다)
+        event = OrderAssemblyEvent.start("V6_GROUPING");
+        List<OrderQueryDto> result = flats.stream()
+                .collect(groupingBy(o -> new OrderQueryDto(o.getOrderId(), o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress(), o.getTotalPrice()),
+                        LinkedHashMap::new,
                         mapping(o -> new OrderItemQueryDto(o.getOrderId(), o.getItemName(), o.getOrderPrice(), o.getCount()), toList())
                 )).entrySet().stream()
-                .map(e -> new OrderQueryDto(e.getKey().getOrderId(), e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(), e.getKey().getAddress(), e.getValue()))
+                .map(e -> new OrderQueryDto(e.getKey().getOrderId(), e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(), e.getKey().getAddress(), e.getKey().getTotalPrice(), e.getValue()))
                 .collect(toList());
+        event.rows(flats.size());
+        if (!result.isEmpty()) event.orders(result.size(), result.get(0).getOrderId(), result.get(result.size() - 1).getOrderId());
+        event.commit();
+
+        return result;
+    }
+
+    /**
+     * V6.1 플랫 데이터 + 주문 기준 페이징
+     * - V6 는 groupingBy 로 row 마다 키 DTO 를 만들고 전체 결과를 Map 에 담으며, 순서도 보장되지 않는다.
+     * - order id 로 정렬된 row 를 OrderFlatAssembler 로 한번만 훑으면서 주문을 완성한다. (Map X, 순서 유지)
+     * - 주문 id 윈도우로 먼저 잘라낸 뒤 조인하므로 row 수가 아닌 주문 수 기준으로 페이징이 된다.
+     */
+    @GetMapping("/api/v6.1/orders")
+    public List<OrderQueryDto> ordersV6_page(@RequestParam(value = "offset", defaultValue = "0") int offset,
+                                             @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        List<OrderFlatDto> flats = orderQueryRepository.findAllByDto_flat(offset, limit);
+
+        OrderAssemblyEvent event = OrderAssemblyEvent.start("V6_1_ASSEMBLE");
+        List<OrderQueryDto> result = OrderFlatAssembler.assemble(flats);
+        event.rows(flats.size());
+        if (!result.isEmpty()) event.orders(result.size(), result.get(0).getOrderId(), result.get(result.size() - 1).getOrderId());
+        event.commit();
+
+        return result;
+    }
+
+    /**
+     * V6 내보내기 (NDJSON / CSV)
+     * - V6 는 플랫 row 전체를 List 로 올리고 메모리에서 다시 묶기 때문에 데이터가 많으면 힙을 크게 쓴다.
+     * - forward-only 커서 + fetch size 로 조금씩 읽으면서 바로 응답에 쓰므로 메모리 사용량이 일정하다.
+     * - format : ndjson(기본, 한 줄에 주문 1건), csv(한 줄에 주문상품 1건)
+     */
+    @GetMapping("/api/v6/orders/export")
+    public void ordersV6_export(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                HttpServletResponse response) throws IOException {
+        response.setCharacterEncoding("UTF-8");
+
+        if ("ndjson".equalsIgnoreCase(format)) {
+            response.setContentType("application/x-ndjson");
+            orderExportService.exportNdjson(response.getWriter());
+        } else if ("csv".equalsIgnoreCase(format)) {
+            response.setContentType("text/csv");
+            response.setHeader("Content-Disposition", "attachment; filename=\"orders.csv\"");
+            orderExportService.exportCsv(response.getWriter());
+        } else {
+            throw new IllegalArgumentException("지원하지 않는 형식입니다. format = " + format);
+        }
+    }
+
+    /**
+     * 여러 상품 주문
+     * - 장바구니의 상품들을 주문 1건, 배송 1건, 트랜잭션 1번으로 저장한다.
+     * - 같은 상품이 여러 줄로 오면 수량을 합친다.
+     */
+    @PostMapping("/api/v1/orders")
+    public CreateOrderResponse saveOrderV1(@RequestBody @Valid CreateOrderRequest request) {
+        Map<Long, Integer> itemCounts = request.getOrderLines().stream()
+                .collect(toMap(OrderLineRequest::getItemId, OrderLineRequest::getCount, Integer::sum));
+
+        Long orderId = orderService.order(request.getMemberId(), itemCounts);
+
+        return new CreateOrderResponse(orderId);
+    }
+
+    /**
+     * 주문 일괄 취소
+     * - 결제사 장애 등으로 여러 주문을 한번에 취소할 때 사용
+     * - 배송완료된 주문이 포함되어 있으면 전체가 취소되지 않는다.
+     */
+    @PostMapping("/api/v1/orders/cancel")
+    public CancelOrdersResponse cancelOrdersV1(@RequestBody @Valid CancelOrdersRequest request) {
+        int canceled = orderService.cancelOrders(request.getOrderIds());
+
+        return new CancelOrdersResponse(canceled);
+    }
+
+    @Data
+    static class CancelOrdersRequest {
+        @NotEmpty
+        private List<Long> orderIds;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CancelOrdersResponse {
+        private int cancelCount;
+    }
+
+    @Data
+    static class CreateOrderRequest {
+        @NotNull
+        private Long memberId;
+        @Valid
+        @NotEmpty
+        private List<OrderLineRequest> orderLines;
+    }
+
+    @Data
+    static class OrderLineRequest {
+        @NotNull
+        private Long itemId;
+        @Positive
+        private int count;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CreateOrderResponse {
+        private Long orderId;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class OrderPage<T> {
+        private List<T> data;
+        private String next; //다음 페이지 커서
     }
 
     @Data
@@ -227,6 +397,7 @@ public class OrderApiController {
         private LocalDateTime orderDate;
         private OrderStatus orderStatus;
         private Address address;
+        private int totalPrice;
         private List<OrderItemDto> orderItems;
 
         public OrderDto(Order order) {
@@ -235,6 +406,7 @@ public class OrderApiController {
             orderDate = order.getOrderDate();
             orderStatus = order.getStatus();
             address = order.getDelivery().getAddress();
+            totalPrice = order.getTotalPrice();
             orderItems = order.getOrderItems().stream()
                     .map(orderItem -> new OrderItemDto(orderItem))
                     .collect(toList());
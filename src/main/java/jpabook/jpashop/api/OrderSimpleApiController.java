@@ -3,13 +3,16 @@ package jpabook.jpashop.api;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.OrderSummary;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
 import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
+import jpabook.jpashop.repository.order.summary.OrderSummaryRepository;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
@@ -30,6 +33,7 @@ public class OrderSimpleApiController {
 
     private final OrderRepository orderRepository;
     private final OrderSimpleQueryRepository orderSimpleQueryRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
 
     /**
      * 무한 루프테 빠진다.
@@ -49,7 +53,7 @@ public class OrderSimpleApiController {
      */
     @GetMapping("/api/v1/simple-orders")
     public List<Order> ordersV1() {
-        List<Order> all = orderRepository.findAllByString(new OrderSearch());
+        List<Order> all = orderRepository.findAllByString(OrderSearch.withMaxSize());
         for (Order order : all) {
             order.getMember().getName(); //lazy 강제 초기화
             order.getDelivery().getAddress(); //lazy 강제 초기화
@@ -64,7 +68,7 @@ public class OrderSimpleApiController {
      */
     @GetMapping("/api/v2/simple-orders")
     public List<SimpleOrderDto> orderV2() {
-        List<Order> orders = orderRepository.findAllByString(new OrderSearch());
+        List<Order> orders = orderRepository.findAllByString(OrderSearch.withMaxSize());
 //        orders.stream()
 //                .map(o -> new SimpleOrderDto(o))
 //                .collect(Collectors.toList());
@@ -107,6 +111,42 @@ public class OrderSimpleApiController {
         return orderSimpleQueryRepository.findOrderDtos();
     }
 
+    /**
+     * V5. 주문 요약(order_summary) 조회
+     * - 주문/취소 시점에 같이 갱신해둔 반정규화 테이블 하나만 조회한다. (조인 X, 주문상품 로딩 X)
+     * - 주문상품 수, 주문 가격도 함께 내려준다.
+     */
+    @GetMapping("/api/v5/simple-orders")
+    public List<OrderSummaryDto> ordersV5(@RequestParam(value = "status", required = false) OrderStatus status,
+                                          @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                          @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return orderSummaryRepository.findAll(status, offset, limit).stream()
+                .map(OrderSummaryDto::new)
+                .collect(toList());
+    }
+
+    @Data
+    static class OrderSummaryDto {
+
+        private Long orderId;
+        private String name;
+        private LocalDateTime orderDate;
+        private OrderStatus orderStatus;
+        private Address address;
+        private int itemCount;
+        private int totalPrice;
+
+        public OrderSummaryDto(OrderSummary summary) {
+            orderId = summary.getOrderId();
+            name = summary.getMemberName();
+            orderDate = summary.getOrderDate();
+            orderStatus = summary.getStatus();
+            address = summary.getAddress();
+            itemCount = summary.getItemCount();
+            totalPrice = summary.getTotalPrice();
+        }
+    }
+
     @Data
     static class SimpleOrderDto {
 
@@ -115,6 +155,7 @@ public class OrderSimpleApiController {
         private LocalDateTime orderDate; //주문시간
         private OrderStatus orderStatus;
         private Address address;
+        private int totalPrice;
 
         public SimpleOrderDto(Order order) {
             orderId = order.getId();
@@ -122,6 +163,7 @@ public class OrderSimpleApiController {
             orderDate = order.getOrderDate();
             orderStatus = order.getStatus();
             address = order.getDelivery().getAddress(); //LAZY 초기화
+            totalPrice = order.getTotalPrice(); //저장된 컬럼, orderItems 로딩 X
         }
     }
 }
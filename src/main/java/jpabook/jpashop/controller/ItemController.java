@@ -1,7 +1,8 @@
 package jpabook.jpashop.controller;
 
-import jpabook.jpashop.domain.Item;
 import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.ItemView;
+import jpabook.jpashop.service.CatalogService;
 import jpabook.jpashop.service.ItemService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
@@ -18,6 +19,7 @@ import java.util.List;
 public class ItemController {
 
     private final ItemService itemService;
+    private final CatalogService catalogService;
 
     @GetMapping("/items/new")
     public String createForm(Model model) {
@@ -39,7 +41,7 @@ public class ItemController {
 
     @GetMapping("/items")
     public String list(Model model) {
-        List<Item> items = itemService.findItems();
+        List<ItemView> items = catalogService.getSnapshot().getItems();
         model.addAttribute("items", items);
 
         return "items/itemList";
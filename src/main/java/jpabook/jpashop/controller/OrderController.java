@@ -1,10 +1,11 @@
 package jpabook.jpashop.controller;
 
-import jpabook.jpashop.domain.Item;
 import jpabook.jpashop.domain.Member;
-import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderSummary;
+import jpabook.jpashop.repository.ItemView;
+import jpabook.jpashop.repository.OrderCursor;
 import jpabook.jpashop.repository.OrderSearch;
-import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.CatalogService;
 import jpabook.jpashop.service.MemberService;
 import jpabook.jpashop.service.OrderService;
 import lombok.RequiredArgsConstructor;
@@ -20,13 +21,13 @@ public class OrderController {
 
     private final OrderService orderService;
     private final MemberService memberService;
-    private final ItemService itemService;
+    private final CatalogService catalogService;
 
     @GetMapping("/order")
     public String createForm(Model model) {
 
         List<Member> members = memberService.findMembers();
-        List<Item> items = itemService.findItems();
+        List<ItemView> items = catalogService.getSnapshot().getItems();
 
         model.addAttribute("members", members);
         model.addAttribute("items", items);
@@ -43,10 +44,20 @@ public class OrderController {
 
     @GetMapping("/orders")
     public String orderList(@ModelAttribute("orderSearch") OrderSearch orderSearch, Model model) {
-        List<Order> orders = orderService.findOrders(orderSearch);
+        //목록은 조인 없이 주문 요약에서 조회한다.
+        List<OrderSummary> orders = orderService.findOrderSummaries(orderSearch);
 
         model.addAttribute("orders", orders);
 
+        //한 페이지가 가득 찼으면 다음 페이지가 있을 수 있다. 주문일 정렬은 커서, 나머지는 페이지 번호로 이어서 조회
+        if (orders.size() == orderSearch.getLimit()) {
+            if (orderSearch.getSortOrDefault().isOrderDate()) {
+                model.addAttribute("nextCursor", OrderCursor.of(orders.get(orders.size() - 1)).encode());
+            } else {
+                model.addAttribute("nextPage", orderSearch.getPage() + 1);
+            }
+        }
+
         return "order/orderList";
     }
 
@@ -0,0 +1,70 @@
+package jpabook.jpashop.datagen;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * datagen 프로필 - InitDb 의 주문 2건 대신 대량 데이터를 만든다.
+ * 예) --spring.profiles.active=datagen --jpashop.datagen.order-count=5000000
+ * 테이블이 만들어진 후(ddl-auto) 실행되도록 entityManagerFactory 다음에 초기화한다.
+ */
+@Component
+@Profile("datagen")
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class DataGenRunner {
+
+    private final DataGenerator dataGenerator;
+
+    @Value("${jpashop.datagen.seed:42}")
+    private long seed;
+    @Value("${jpashop.datagen.member-count:100000}")
+    private int memberCount;
+    @Value("${jpashop.datagen.item-count:10000}")
+    private int itemCount;
+    @Value("${jpashop.datagen.order-count:1000000}")
+    private int orderCount;
+    @Value("${jpashop.datagen.avg-lines-per-order:2.5}")
+    private double avgLinesPerOrder;
+    @Value("${jpashop.datagen.max-lines-per-order:10}")
+    private int maxLinesPerOrder;
+    @Value("${jpashop.datagen.item-skew:1.1}")
+    private double itemSkew;
+    @Value("${jpashop.datagen.member-skew:0.8}")
+    private double memberSkew;
+    @Value("${jpashop.datagen.cancel-ratio:0.05}")
+    private double cancelRatio;
+    @Value("${jpashop.datagen.days:365}")
+    private int days;
+    @Value("${jpashop.datagen.initial-stock:1000000}")
+    private int initialStock;
+    @Value("${jpashop.datagen.workers:4}")
+    private int workers;
+    @Value("${jpashop.datagen.batch-size:1000}")
+    private int batchSize;
+
+    @PostConstruct
+    public void init() {
+        DataGenSpec spec = new DataGenSpec();
+        spec.setSeed(seed);
+        spec.setMemberCount(memberCount);
+        spec.setItemCount(itemCount);
+        spec.setOrderCount(orderCount);
+        spec.setAvgLinesPerOrder(avgLinesPerOrder);
+        spec.setMaxLinesPerOrder(maxLinesPerOrder);
+        spec.setItemSkew(itemSkew);
+        spec.setMemberSkew(memberSkew);
+        spec.setCancelRatio(cancelRatio);
+        spec.setDays(days);
+        spec.setInitialStock(initialStock);
+        spec.setWorkers(workers);
+        spec.setBatchSize(batchSize);
+
+        dataGenerator.generate(spec);
+    }
+}
@@ -0,0 +1,27 @@
+package jpabook.jpashop.datagen;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 생성할 데이터 양과 분포
+ */
+@Getter
+@Setter
+public class DataGenSpec {
+
+    private long seed = 42; //같은 seed 면 항상 같은 데이터 (workers 와 상관없다)
+    private int memberCount = 100_000;
+    private int itemCount = 10_000;
+    private int orderCount = 1_000_000;
+    private double avgLinesPerOrder = 2.5; //주문상품 수 평균 (1 이상, 기하 분포)
+    private int maxLinesPerOrder = 10;
+    private int maxCountPerLine = 5;
+    private double itemSkew = 1.1; //상품 인기도 zipf 지수, 0 이면 균등. 클수록 소수 인기 상품에 주문이 몰린다.
+    private double memberSkew = 0.8; //회원 주문 빈도 zipf 지수
+    private double cancelRatio = 0.05;
+    private int days = 365; //주문일 범위 (오늘부터 과거로)
+    private int initialStock = 1_000_000;
+    private int workers = 4; //동시에 insert 하는 스레드 수 (DataGenRunner 의 jpashop.datagen.workers 기본값과 같다)
+    private int batchSize = 1000;
+}
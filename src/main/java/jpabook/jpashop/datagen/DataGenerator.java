@@ -0,0 +1,195 @@
+package jpabook.jpashop.datagen;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 대량 테스트 데이터 생성
+ * - em.persist 대신 JDBC 배치 insert 로 바로 넣고, id 를 블럭으로 나누어 여러 스레드가 동시에 넣는다.
+ * - 주문은 주문상품/배송/order_summary 와 함께 만들고, 주문 가격(total_price)도 채운다.
+ * - 다 넣은 후에 시퀀스를 최대 id 다음으로 옮겨서 이후 JPA 저장과 id 가 겹치지 않게 한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DataGenerator {
+
+    private static final int ALLOCATION_SIZE = 50; //엔티티 @SequenceGenerator allocationSize
+    private static final int BLOCK_SIZE = 10_000; //Random 을 새로 만드는 id 단위, workers 와 상관없이 고정
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void generate(DataGenSpec spec) {
+        long start = System.currentTimeMillis();
+
+        //상품 가격, 인기도는 모든 worker 가 같이 쓰므로 먼저 만든다.
+        Random random = new Random(spec.getSeed());
+        int[] prices = new int[spec.getItemCount() + 1];
+        for (int id = 1; id <= spec.getItemCount(); id++) {
+            prices[id] = 1000 * (1 + random.nextInt(50));
+        }
+        ZipfSampler items = new ZipfSampler(spec.getItemCount(), spec.getItemSkew(), random);
+        ZipfSampler members = new ZipfSampler(spec.getMemberCount(), spec.getMemberSkew(), random);
+        LocalDateTime from = LocalDateTime.now().minusDays(spec.getDays());
+        long secondsPerOrder = Math.max(1, spec.getDays() * 86400L / Math.max(1, spec.getOrderCount()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(spec.getWorkers(), new CustomizableThreadFactory("datagen-"));
+        try {
+            runParallel(executor, spec, spec.getMemberCount(), (lo, hi, r) -> insertMembers(spec, lo, hi));
+            runParallel(executor, spec, spec.getItemCount(), (lo, hi, r) -> insertItems(spec, prices, lo, hi));
+            runParallel(executor, spec, spec.getOrderCount(), (lo, hi, r) ->
+                    insertOrders(spec, prices, items, members, from, secondsPerOrder, lo, hi, r));
+        } finally {
+            executor.shutdown();
+        }
+
+        restartSequence("member_seq", "member", "member_id");
+        restartSequence("item_seq", "item", "item_id");
+        restartSequence("delivery_seq", "delivery", "delivery_id");
+        restartSequence("orders_seq", "orders", "order_id");
+        restartSequence("order_item_seq", "order_item", "id");
+
+        log.info("data generated. members = {}, items = {}, orders = {}, {}ms",
+                spec.getMemberCount(), spec.getItemCount(), spec.getOrderCount(), System.currentTimeMillis() - start);
+    }
+
+    private void insertMembers(DataGenSpec spec, long lo, long hi) {
+        String sql = "insert into member (member_id, name, city, street, zipcode) values (?, ?, ?, ?, ?)";
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = lo; id < hi; id++) {
+            rows.add(new Object[]{id, memberName(id), city(id), street(id), zipcode(id)});
+            if (rows.size() == spec.getBatchSize()) batch(sql, rows);
+        }
+        batch(sql, rows);
+    }
+
+    private void insertItems(DataGenSpec spec, int[] prices, long lo, long hi) {
+        String sql = "insert into item (dtype, item_id, name, price, stock_quantity, stock_shard_count, author, isbn) values (?, ?, ?, ?, ?, ?, ?, ?)";
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = lo; id < hi; id++) {
+            rows.add(new Object[]{"B", id, "book" + id, prices[(int) id], spec.getInitialStock(), 0, "author" + id % 1000, "isbn" + id});
+            if (rows.size() == spec.getBatchSize()) batch(sql, rows);
+        }
+        batch(sql, rows);
+    }
+
+    private void insertOrders(DataGenSpec spec, int[] prices, ZipfSampler items, ZipfSampler members,
+                              LocalDateTime from, long secondsPerOrder, long lo, long hi, Random random) {
+        List<Object[]> deliveries = new ArrayList<>();
+        List<Object[]> orders = new ArrayList<>();
+        List<Object[]> orderItems = new ArrayList<>();
+        List<Object[]> summaries = new ArrayList<>();
+        //주문상품 수는 평균이 avgLinesPerOrder 인 기하 분포
+        double lineContinue = 1 - 1 / Math.max(1.0, spec.getAvgLinesPerOrder());
+
+        for (long orderId = lo; orderId < hi; orderId++) {
+            long memberId = members.next(random);
+            LocalDateTime orderDate = from.plusSeconds((orderId - 1) * secondsPerOrder + random.nextInt((int) secondsPerOrder));
+            String status = random.nextDouble() < spec.getCancelRatio() ? "CANCEL" : "ORDER";
+
+            int lines = 1;
+            while (lines < spec.getMaxLinesPerOrder() && random.nextDouble() < lineContinue) lines++;
+
+            int totalPrice = 0;
+            //주문상품 id 는 블럭끼리 겹치지 않도록 주문마다 maxLines 개씩 자리를 잡아둔다.
+            long orderItemId = (orderId - 1) * spec.getMaxLinesPerOrder() + 1;
+            for (int line = 0; line < lines; line++) {
+                long itemId = items.next(random);
+                int count = 1 + random.nextInt(spec.getMaxCountPerLine());
+                totalPrice += prices[(int) itemId] * count;
+                orderItems.add(new Object[]{orderItemId++, itemId, orderId, prices[(int) itemId], count});
+            }
+
+            Timestamp date = Timestamp.valueOf(orderDate);
+            deliveries.add(new Object[]{orderId, city(memberId), street(memberId), zipcode(memberId), "READY"});
+            orders.add(new Object[]{orderId, memberId, orderId, date, status, totalPrice});
+            summaries.add(new Object[]{orderId, memberId, memberName(memberId), city(memberId), street(memberId), zipcode(memberId), status, date, lines, totalPrice});
+
+            if (orders.size() == spec.getBatchSize()) {
+                insertOrderBatch(deliveries, orders, orderItems, summaries);
+            }
+        }
+        insertOrderBatch(deliveries, orders, orderItems, summaries);
+    }
+
+    private void insertOrderBatch(List<Object[]> deliveries, List<Object[]> orders, List<Object[]> orderItems, List<Object[]> summaries) {
+        batch("insert into delivery (delivery_id, city, street, zipcode, status) values (?, ?, ?, ?, ?)", deliveries);
+        batch("insert into orders (order_id, member_id, delivery_id, order_date, status, total_price) values (?, ?, ?, ?, ?, ?)", orders);
+        batch("insert into order_item (id, item_id, order_id, order_price, count) values (?, ?, ?, ?, ?)", orderItems);
+        batch("insert into order_summary (order_id, member_id, member_name, city, street, zipcode, status, order_date, item_count, total_price)" +
+                " values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", summaries);
+    }
+
+    //rows 를 보내고 비운다.
+    private void batch(String sql, List<Object[]> rows) {
+        if (rows.isEmpty()) return;
+        jdbcTemplate.batchUpdate(sql, rows);
+        rows.clear();
+    }
+
+    /**
+     * pooled 옵티마이저는 시퀀스 값 v 를 받으면 (v - allocationSize, v] 범위를 쓰므로, 최대 id + allocationSize 다음부터 시작한다.
+     */
+    private void restartSequence(String sequence, String table, String idColumn) {
+        Long maxId = jdbcTemplate.queryForObject("select coalesce(max(" + idColumn + "), 0) from " + table, Long.class);
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (maxId + ALLOCATION_SIZE + 1));
+    }
+
+    /**
+     * 1 ~ count 의 id 를 BLOCK_SIZE 개씩 나누어 workers 개 스레드에서 동시에 실행한다.
+     * 블럭마다 (seed, 블럭 번호) 로 만든 Random 을 따로 쓰므로, workers 를 바꿔도 같은 seed 면 같은 데이터가 만들어진다.
+     */
+    private void runParallel(ExecutorService executor, DataGenSpec spec, int count, RangeTask task) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (long lo = 1; lo <= count; lo += BLOCK_SIZE) {
+            long from = lo;
+            long hi = Math.min(count + 1, lo + BLOCK_SIZE);
+            Random random = new Random(spec.getSeed() * 31 + lo / BLOCK_SIZE);
+            futures.add(executor.submit(() -> task.run(from, hi, random)));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("데이터 생성이 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("데이터 생성에 실패했습니다.", e.getCause());
+        }
+    }
+
+    private interface RangeTask {
+        void run(long lo, long hi, Random random);
+    }
+
+    private static String memberName(long memberId) {
+        return "member" + memberId;
+    }
+
+    private static String city(long memberId) {
+        return "city" + memberId % 100;
+    }
+
+    private static String street(long memberId) {
+        return "street" + memberId;
+    }
+
+    private static String zipcode(long memberId) {
+        return String.valueOf(10000 + memberId % 90000);
+    }
+}
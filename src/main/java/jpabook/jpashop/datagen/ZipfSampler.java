@@ -0,0 +1,44 @@
+package jpabook.jpashop.datagen;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * zipf 분포 샘플러 - 순위 k 가 뽑힐 확률이 1/k^skew 에 비례한다.
+ * 순위 -> id 는 seed 로 섞어서 인기 상품이 낮은 id 에 몰리지 않게 한다.
+ */
+class ZipfSampler {
+
+    private final double[] cdf;
+    private final int[] ids;
+
+    ZipfSampler(int size, double skew, Random random) {
+        cdf = new double[size];
+        double sum = 0;
+        for (int rank = 1; rank <= size; rank++) {
+            sum += 1.0 / Math.pow(rank, skew);
+            cdf[rank - 1] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cdf[i] /= sum;
+        }
+
+        ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = i + 1;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = ids[i];
+            ids[i] = ids[j];
+            ids[j] = tmp;
+        }
+    }
+
+    //1 ~ size 사이의 id, 여러 스레드에서 각자의 Random 으로 호출해도 된다.
+    long next(Random random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        if (index < 0) index = -index - 1;
+        return ids[Math.min(index, ids.length - 1)];
+    }
+}
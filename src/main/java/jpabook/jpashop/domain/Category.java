@@ -1,21 +1,26 @@
 package jpabook.jpashop.domain;
 
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
+import static javax.persistence.CascadeType.ALL;
 import static javax.persistence.FetchType.*;
 
 @Entity
 @Getter
 @Setter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Category {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "category_seq_generator")
+    @SequenceGenerator(name = "category_seq_generator", sequenceName = "category_seq", allocationSize = 50)
     @Column(name = "category_id")
     private Long id;
 
@@ -34,8 +39,38 @@ public class Category {
     @OneToMany(mappedBy = "parent")
     private List<Category> child = new ArrayList<>();
 
+    //이 카테고리가 조상인 클로저 (자기 자신 포함)
+    @OneToMany(mappedBy = "ancestor", cascade = ALL)
+    private List<CategoryClosure> descendantLinks = new ArrayList<>();
+
+    //--생성 메서드--
+    public static Category createCategory(String name) {
+        Category category = new Category();
+        category.setName(name);
+        category.getDescendantLinks().add(CategoryClosure.createClosure(category, category, 0));
+        return category;
+    }
+
+    //--연관관계 메서드--
     public void addChildCategory(Category child){
+        if (child.getParent() != null) {
+            throw new IllegalStateException("이미 상위 카테고리가 있습니다.");
+        }
         this.child.add(child);
         child.setParent(this);
+
+        //이 카테고리와 모든 조상 -> child 와 child 의 모든 자손
+        int depth = 1;
+        for (Category ancestor = this; ancestor != null; ancestor = ancestor.getParent(), depth++) {
+            for (CategoryClosure link : child.getDescendantLinks()) {
+                ancestor.getDescendantLinks().add(
+                        CategoryClosure.createClosure(ancestor, link.getDescendant(), depth + link.getDepth()));
+            }
+        }
+    }
+
+    public void addItem(Item item) {
+        items.add(item);
+        item.getCategories().add(this);
     }
 }
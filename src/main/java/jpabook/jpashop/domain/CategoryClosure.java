@@ -0,0 +1,52 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+
+import static javax.persistence.FetchType.LAZY;
+
+/**
+ * 카테고리 클로저 테이블
+ * 조상 -> 자손 (자기 자신 포함, depth 0) 모든 쌍을 저장한다.
+ * 하위 트리 전체를 레벨마다 조회하지 않고 ancestor_id 조건 한번으로 찾을 수 있다.
+ */
+@Entity
+@Table(name = "category_closure", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_category_closure", columnNames = {"ancestor_id", "descendant_id"})
+}, indexes = {
+        @Index(name = "idx_category_closure_descendant", columnList = "descendant_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class CategoryClosure {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "category_closure_seq_generator")
+    @SequenceGenerator(name = "category_closure_seq_generator", sequenceName = "category_closure_seq", allocationSize = 50)
+    @Column(name = "category_closure_id")
+    private Long id;
+
+    @ManyToOne(fetch = LAZY)
+    @JoinColumn(name = "ancestor_id")
+    private Category ancestor;
+
+    @ManyToOne(fetch = LAZY)
+    @JoinColumn(name = "descendant_id")
+    private Category descendant;
+
+    private int depth;
+
+    //--생성 메서드--
+    public static CategoryClosure createClosure(Category ancestor, Category descendant, int depth) {
+        CategoryClosure closure = new CategoryClosure();
+        closure.setAncestor(ancestor);
+        closure.setDescendant(descendant);
+        closure.setDepth(depth);
+        return closure;
+    }
+}
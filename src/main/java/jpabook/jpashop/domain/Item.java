@@ -5,12 +5,17 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Formula;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "item")
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "dtype")
 @Getter
@@ -19,26 +24,56 @@ import java.util.List;
 public abstract class Item {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_seq_generator")
+    @SequenceGenerator(name = "item_seq_generator", sequenceName = "item_seq", allocationSize = 50)
     @Column(name = "item_id")
     private Long id;
 
     private String name;
     private int price;
+
+    //재고는 변경감지로 쓰지 않는다. 차감, 복구, 변경은 ItemRepository 의 update 쿼리로만 한다.
+    //(읽어둔 재고로 update 가 나가면 그 사이 다른 주문이 차감한 재고를 덮어쓴다.)
+    @Column(updatable = false)
     private int stockQuantity;
 
+    //재고 분할 수, 0 이면 분할하지 않는다. (ItemStockShard)
+    private int stockShardCount;
+
+    //분할 재고의 합, 조회 시점에 계산된다.
+    @Setter(AccessLevel.NONE)
+    @Formula("(select coalesce(sum(s.stock_quantity), 0) from item_stock_shard s where s.item_id = item_id)")
+    private int shardStockQuantity;
+
     @ManyToMany(mappedBy = "items")
     private List<Category> categories = new ArrayList<>();
 
-    //--비즈니스 로직--
+    //--조회 로직--
+
+    /*
+        재고 수량
+        분할 재고 상품은 item 의 재고(취소 등으로 돌아온 재고) + 분할 재고의 합
+     */
+    public int getStockQuantity() {
+        return isStockSharded() ? stockQuantity + shardStockQuantity : stockQuantity;
+    }
 
-    //stock 증가
-    public void addStock(int quantity){
-        this.stockQuantity += quantity;
+    //분할 재고를 뺀 item 의 재고
+    public int getItemStockQuantity() {
+        return stockQuantity;
     }
 
-    //stock 감소
+    public boolean isStockSharded() {
+        return stockShardCount > 0;
+    }
+
+    //--비즈니스 로직--
+
+    //stock 감소 - 저장 전(persist 전) 새 상품에만 쓴다. 저장된 상품은 ItemRepository.removeStock
     public void removeStock(int quantity){
+        if (isStockSharded()) {
+            throw new IllegalStateException("분할 재고 상품은 ItemRepository.removeStock 으로 차감해야 합니다.");
+        }
         int restStock = this.stockQuantity - quantity;
         if(restStock < 0){
             throw new NotEnoughStockException("need more stock");
@@ -0,0 +1,47 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+
+import static javax.persistence.FetchType.LAZY;
+
+/**
+ * 분할 재고
+ * 플래시 세일처럼 한 상품에 주문이 몰리면 재고 row 하나에 update 가 몰린다.
+ * 재고를 N 개의 row 로 나누어 두고 주문마다 임의의 row 를 차감해서 쓰기 경합을 줄인다.
+ */
+@Entity
+@Table(name = "item_stock_shard", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_item_stock_shard", columnNames = {"item_id", "shard_no"})
+})
+@Getter
+@Setter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ItemStockShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_stock_shard_seq_generator")
+    @SequenceGenerator(name = "item_stock_shard_seq_generator", sequenceName = "item_stock_shard_seq", allocationSize = 50)
+    @Column(name = "item_stock_shard_id")
+    private Long id;
+
+    @ManyToOne(fetch = LAZY)
+    @JoinColumn(name = "item_id")
+    private Item item;
+
+    private int shardNo;
+    private int stockQuantity;
+
+    //--생성 메서드--
+    public static ItemStockShard createShard(Item item, int shardNo, int stockQuantity) {
+        ItemStockShard shard = new ItemStockShard();
+        shard.setItem(item);
+        shard.setShardNo(shardNo);
+        shard.setStockQuantity(stockQuantity);
+        return shard;
+    }
+}
@@ -14,14 +14,19 @@ import static javax.persistence.CascadeType.ALL;
 import static javax.persistence.FetchType.LAZY;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_order_date_id", columnList = "order_date, order_id"), //키셋 페이징
+        @Index(name = "idx_orders_status_order_date", columnList = "status, order_date"), //상태 + 기간 검색
+        @Index(name = "idx_orders_member_order_date", columnList = "member_id, order_date") //회원 + 기간 검색
+})
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Order {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_seq_generator")
+    @SequenceGenerator(name = "order_seq_generator", sequenceName = "orders_seq", allocationSize = 50)
     @Column(name = "order_id")
     private Long id;
 
@@ -41,6 +46,9 @@ public class Order {
     @Enumerated(EnumType.STRING)
     private OrderStatus status;
 
+    //전체 주문 가격 - 목록에서 가격만 보려고 orderItems 를 로딩하지 않도록 주문 생성시 저장해둔다.
+    private int totalPrice;
+
     //--생성 메서드--
     public static Order createOrder(Member member, Delivery delivery, OrderItem... orderItems) {
         Order order = new Order();
@@ -64,6 +72,7 @@ public class Order {
     public void addOrderItem(OrderItem orderItem) {
         orderItems.add(orderItem);
         orderItem.setOrder(this);
+        totalPrice += orderItem.getTotalPrice();
     }
 
     public void setDelivery(Delivery delivery) {
@@ -74,6 +83,7 @@ public class Order {
     //--비즈니스 로직--
     /*
         주문 취소
+        취소해도 주문 가격(totalPrice)은 그대로 두고 상태로 구분한다.
      */
     public void cancel() {
         if (delivery.getStatus() == DeliveryStatus.COMP) {
@@ -81,27 +91,6 @@ public class Order {
         }
 
         this.setStatus(OrderStatus.CANCEL);
-
-        for (OrderItem orderItem : this.orderItems) {
-            orderItem.cancel();
-        }
-    }
-
-    //--조회 로직--
-    /*
-        전체 주문 가격 조회
-     */
-    public int getTotalPrice() {
-        /*
-        int totalPrice = 0;
-        for (OrderItem orderItem : orderItems) {
-            totalPrice += orderItem.getTotalPrice();
-        }
-        return totalPrice;
-        */
-
-        return orderItems.stream()
-                .mapToInt(OrderItem::getTotalPrice)
-                .sum();
+        //재고 복구는 OrderService 에서 update 쿼리로 한다. (Item.stockQuantity 는 변경감지 대상이 아니다)
     }
 }
@@ -17,7 +17,8 @@ import static javax.persistence.FetchType.LAZY;
 public class OrderItem {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq_generator")
+    @SequenceGenerator(name = "order_item_seq_generator", sequenceName = "order_item_seq", allocationSize = 50)
     @JoinColumn(name = "order_item_id")
     private Long id;
 
@@ -35,19 +36,23 @@ public class OrderItem {
 
     //--생성메서드--
     public static OrderItem createOrderItem(Item item, int orderPrice, int count) {
-        OrderItem orderItem = new OrderItem();
-        orderItem.setItem(item);
-        orderItem.setOrderPrice(orderPrice);
-        orderItem.setCount(count);
+        OrderItem orderItem = createReservedOrderItem(item, orderPrice, count);
 
         item.removeStock(count);
 
         return orderItem;
     }
 
-    //--비즈니스 로직--
-    public void cancel() {
-        getItem().addStock(count);
+    /*
+        재고를 이미 차감한 경우(ItemRepository.removeStock) 사용
+     */
+    public static OrderItem createReservedOrderItem(Item item, int orderPrice, int count) {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setItem(item);
+        orderItem.setOrderPrice(orderPrice);
+        orderItem.setCount(count);
+
+        return orderItem;
     }
 
     //--조회 로직--
@@ -0,0 +1,61 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 주문 요약 (조회 전용 모델)
+ * - 주문 목록에 필요한 값을 orders, member, delivery 조인 없이 테이블 하나에서 읽을 수 있도록 반정규화 해둔다.
+ * - 주문, 취소, 회원 이름 변경시 같은 트랜잭션에서 함께 갱신한다.
+ */
+@Entity
+@Table(name = "order_summary", indexes = {
+        @Index(name = "idx_order_summary_order_date", columnList = "order_date, order_id"),
+        @Index(name = "idx_order_summary_status_order_date", columnList = "status, order_date"),
+        @Index(name = "idx_order_summary_member_id", columnList = "member_id")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OrderSummary {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "member_id")
+    private Long memberId;
+    private String memberName;
+
+    @Embedded
+    private Address address; //배송지
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    private LocalDateTime orderDate;
+    private int itemCount;  //주문상품 수
+    private int totalPrice; //주문 가격
+
+    //--생성 메서드--
+    public static OrderSummary createOrderSummary(Order order) {
+        OrderSummary summary = new OrderSummary();
+        summary.orderId = order.getId();
+        summary.memberId = order.getMember().getId();
+        summary.memberName = order.getMember().getName();
+        summary.address = order.getDelivery().getAddress();
+        summary.status = order.getStatus();
+        summary.orderDate = order.getOrderDate();
+        summary.itemCount = order.getOrderItems().size();
+        summary.totalPrice = order.getTotalPrice();
+        return summary;
+    }
+
+    //--비즈니스 로직--
+    public void cancel() {
+        this.status = OrderStatus.CANCEL;
+    }
+}
@@ -0,0 +1,52 @@
+package jpabook.jpashop.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 주문 조회 DTO 조립 단계 (루트 조회, 컬렉션 조회, 플랫 조회, 조립)
+ */
+@Name("jpashop.OrderAssembly")
+@Label("Order Assembly")
+@Category({"jpashop", "Order Query"})
+@Description("OrderQueryRepository / OrderApiController.ordersV6 조회, 조립 단계")
+@StackTrace(false)
+public class OrderAssemblyEvent extends jdk.jfr.Event {
+
+    @Label("Step")
+    public String step;
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Orders")
+    public int orders;
+
+    @Label("First Order Id")
+    public long firstOrderId;
+
+    @Label("Last Order Id")
+    public long lastOrderId;
+
+    public static OrderAssemblyEvent start(String step) {
+        OrderAssemblyEvent event = new OrderAssemblyEvent();
+        event.step = step;
+        event.begin();
+        return event;
+    }
+
+    public OrderAssemblyEvent rows(int rows) {
+        this.rows = rows;
+        return this;
+    }
+
+    public OrderAssemblyEvent orders(int orders, Long firstOrderId, Long lastOrderId) {
+        this.orders = orders;
+        this.firstOrderId = firstOrderId == null ? 0 : firstOrderId;
+        this.lastOrderId = lastOrderId == null ? 0 : lastOrderId;
+        return this;
+    }
+}
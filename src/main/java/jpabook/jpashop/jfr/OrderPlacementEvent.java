@@ -0,0 +1,40 @@
+package jpabook.jpashop.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 주문 1건 전체 (OrderService.order, 커밋 완료까지) - 단계별 시간은 OrderStageEvent
+ * 장바구니 주문은 itemId 가 0, count 는 전체 주문 수량
+ */
+@Name("jpashop.OrderPlacement")
+@Label("Order Placement")
+@Category({"jpashop", "Order"})
+@Description("OrderService.order 전체")
+@StackTrace(false)
+public class OrderPlacementEvent extends jdk.jfr.Event {
+
+    @Label("Member Id")
+    public long memberId;
+
+    @Label("Item Id")
+    public long itemId;
+
+    @Label("Count")
+    public int count;
+
+    @Label("Order Id")
+    public long orderId;
+
+    public static OrderPlacementEvent start(Long memberId, Long itemId, int count) {
+        OrderPlacementEvent event = new OrderPlacementEvent();
+        event.memberId = memberId == null ? 0 : memberId;
+        event.itemId = itemId == null ? 0 : itemId;
+        event.count = count;
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,75 @@
+package jpabook.jpashop.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 주문 단계 (회원 조회, 상품 조회, 재고 차감, 엔티티 생성/저장, flush + 커밋)
+ */
+@Name("jpashop.OrderStage")
+@Label("Order Stage")
+@Category({"jpashop", "Order"})
+@Description("OrderService.order 의 단계별 시간")
+@StackTrace(false)
+public class OrderStageEvent extends jdk.jfr.Event {
+
+    public static final String MEMBER_LOAD = "MEMBER_LOAD";
+    public static final String ITEM_LOAD = "ITEM_LOAD";
+    public static final String STOCK_CHECK = "STOCK_CHECK";
+    public static final String PERSIST = "PERSIST";
+    public static final String FLUSH_COMMIT = "FLUSH_COMMIT";
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Member Id")
+    public long memberId;
+
+    @Label("Item Id")
+    public long itemId;
+
+    @Label("Order Id")
+    public long orderId;
+
+    public static OrderStageEvent start(String stage, Long memberId, Long itemId) {
+        OrderStageEvent event = new OrderStageEvent();
+        event.stage = stage;
+        event.memberId = memberId == null ? 0 : memberId;
+        event.itemId = itemId == null ? 0 : itemId;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * insert/update 는 커밋할 때 flush 되므로, 커밋 직전부터 커밋 완료까지를 FLUSH_COMMIT 단계로 기록한다.
+     * 주문 전체 이벤트(placement)도 커밋이 끝난 뒤 같은 시점에 끝낸다.
+     */
+    public static void recordFlushCommit(Long memberId, Long itemId, Long orderId, OrderPlacementEvent placement) {
+        placement.orderId = orderId == null ? 0 : orderId;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            placement.commit();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private OrderStageEvent event;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                event = start(FLUSH_COMMIT, memberId, itemId);
+                event.orderId = placement.orderId;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (event != null) event.commit();
+                placement.commit();
+            }
+        });
+    }
+}
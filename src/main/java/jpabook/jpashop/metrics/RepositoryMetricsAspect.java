@@ -0,0 +1,44 @@
+package jpabook.jpashop.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * 리포지토리 메서드 실행 시간 - jpashop.repository 타이머 (class, method, exception 태그)
+ * 분위수/히스토그램 설정은 application.yml 의 management.metrics.distribution
+ * Stream 을 반환하는 메서드(streamAllByDto_flat)는 커서를 여는 시간까지만 잡힌다.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(public * jpabook.jpashop.repository.OrderRepository.*(..))" +
+            " || execution(public * jpabook.jpashop.repository.order.query.OrderQueryRepository.*(..))" +
+            " || execution(public * jpabook.jpashop.repository.ItemRepository.*(..))" +
+            " || execution(public * jpabook.jpashop.repository.MemberRepository.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("jpashop.repository")
+                    .description("repository method latency")
+                    .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+}
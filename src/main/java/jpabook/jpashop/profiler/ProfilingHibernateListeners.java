@@ -0,0 +1,53 @@
+package jpabook.jpashop.profiler;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.HibernateException;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 하이버네이트 이벤트로 엔티티 로딩, 지연 로딩(프록시/컬렉션 초기화), 영속성 컨텍스트 크기를 센다.
+ * OSIV 가 켜져 있으면 타임리프 뷰 렌더링 중의 지연 로딩도 같은 요청 스레드에서 일어나므로 함께 잡힌다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProfilingHibernateListeners implements PostLoadEventListener, LoadEventListener, InitializeCollectionEventListener {
+
+    private final EntityManagerFactory emf;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_LOAD, this);
+        registry.appendListeners(EventType.LOAD, this);
+        registry.appendListeners(EventType.INIT_COLLECTION, this);
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        RequestProfile profile = RequestProfiler.current();
+        if (profile != null) {
+            profile.entityLoad(event.getSession().getPersistenceContextInternal().getNumberOfManagedEntities());
+        }
+    }
+
+    //IMMEDIATE_LOAD : 프록시를 처음 사용해서 초기화할 때
+    @Override
+    public void onLoad(LoadEvent event, LoadType loadType) throws HibernateException {
+        RequestProfile profile = RequestProfiler.current();
+        if (profile != null && loadType == LoadEventListener.IMMEDIATE_LOAD) profile.lazyLoad();
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) throws HibernateException {
+        RequestProfile profile = RequestProfiler.current();
+        if (profile != null) profile.lazyLoad();
+    }
+}
@@ -0,0 +1,28 @@
+package jpabook.jpashop.profiler;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy 이벤트로 SQL 실행 횟수, 모양, 읽은 row 수를 센다.
+ * (p6spy-spring-boot-starter 가 JdbcEventListener 빈을 자동으로 등록한다.)
+ */
+@Component
+public class ProfilingJdbcEventListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        RequestProfile profile = RequestProfiler.current();
+        if (profile != null) profile.statement(statementInformation.getSql());
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos, boolean hasNext, SQLException e) {
+        RequestProfile profile = RequestProfiler.current();
+        if (profile != null && hasNext) profile.row();
+    }
+}
@@ -0,0 +1,89 @@
+package jpabook.jpashop.profiler;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 요청 1번 동안의 SQL / 엔티티 로딩 통계
+ * 요청 스레드와 RequestProfiler.wrap(...) 으로 넘겨받은 워커 스레드가 같이 기록하므로 동기화한다.
+ */
+public class RequestProfile {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+
+    private int statementCount;
+    private long rowCount;
+    private int entityLoadCount;
+    private int lazyLoadCount; //프록시 초기화 + 컬렉션 초기화
+    private int maxPersistenceContextSize;
+    private final Map<String, Integer> shapeCounts = new LinkedHashMap<>();
+
+    synchronized void statement(String sql) {
+        statementCount++;
+        if (sql != null) shapeCounts.merge(shape(sql), 1, Integer::sum);
+    }
+
+    synchronized void row() {
+        rowCount++;
+    }
+
+    synchronized void entityLoad(int persistenceContextSize) {
+        entityLoadCount++;
+        maxPersistenceContextSize = Math.max(maxPersistenceContextSize, persistenceContextSize);
+    }
+
+    synchronized void lazyLoad() {
+        lazyLoadCount++;
+    }
+
+    public synchronized int getStatementCount() {
+        return statementCount;
+    }
+
+    public synchronized long getRowCount() {
+        return rowCount;
+    }
+
+    public synchronized int getEntityLoadCount() {
+        return entityLoadCount;
+    }
+
+    public synchronized int getLazyLoadCount() {
+        return lazyLoadCount;
+    }
+
+    public synchronized int getMaxPersistenceContextSize() {
+        return maxPersistenceContextSize;
+    }
+
+    /**
+     * SQL 모양(파라미터 값, IN 목록 길이를 지운 SQL) -> 실행 횟수
+     */
+    public synchronized Map<String, Integer> getShapeCounts() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(shapeCounts));
+    }
+
+    /**
+     * 같은 모양의 SQL 이 threshold 번 이상 실행되었으면 N+1 로 본다. (루프 안에서 건건이 조회)
+     */
+    public synchronized Map<String, Integer> getNPlusOneShapes(int threshold) {
+        return shapeCounts.entrySet().stream()
+                .filter(e -> e.getValue() >= threshold)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    static String shape(String sql) {
+        String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        return IN_LIST.matcher(shape).replaceAll("(?)");
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "statements=" + statementCount + ", rows=" + rowCount + ", entityLoads=" + entityLoadCount +
+                ", lazyLoads=" + lazyLoadCount + ", maxPersistenceContextSize=" + maxPersistenceContextSize;
+    }
+}
@@ -0,0 +1,87 @@
+package jpabook.jpashop.profiler;
+
+import java.util.function.Supplier;
+
+/**
+ * 요청 단위 프로파일러
+ * - start ~ stop 사이에 현재 스레드에서 실행된 SQL(p6spy), 엔티티 로딩/지연 로딩(하이버네이트 이벤트)을 센다.
+ * - 다른 스레드로 넘기는 작업은 wrap(...) 으로 감싸야 그 스레드에서 실행된 SQL 도 같이 센다. (예: V5 의 chunk 병렬 조회)
+ * - 테스트에서는 profile(...) 로 코드 블럭 하나를 측정할 수 있다.
+ */
+public final class RequestProfiler {
+
+    private static final ThreadLocal<RequestProfile> CURRENT = new ThreadLocal<>();
+
+    private RequestProfiler() {
+    }
+
+    public static RequestProfile start() {
+        RequestProfile profile = new RequestProfile();
+        CURRENT.set(profile);
+        return profile;
+    }
+
+    public static RequestProfile stop() {
+        RequestProfile profile = CURRENT.get();
+        CURRENT.remove();
+        return profile;
+    }
+
+    //측정 중이 아니면 null
+    static RequestProfile current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 지금 측정 중인 프로파일을 task 를 실행하는 스레드에도 넘긴다. 측정 중이 아니면 task 를 그대로 돌려준다.
+     */
+    public static Runnable wrap(Runnable task) {
+        RequestProfile profile = CURRENT.get();
+        if (profile == null) return task;
+        return () -> {
+            RequestProfile previous = CURRENT.get();
+            CURRENT.set(profile);
+            try {
+                task.run();
+            } finally {
+                if (previous != null) CURRENT.set(previous); else CURRENT.remove();
+            }
+        };
+    }
+
+    public static RequestProfile profile(Runnable block) {
+        return profile(() -> {
+            block.run();
+            return null;
+        }).profile;
+    }
+
+    public static <T> Result<T> profile(Supplier<T> block) {
+        RequestProfile previous = CURRENT.get();
+        RequestProfile profile = start();
+        try {
+            T value = block.get();
+            return new Result<>(value, profile);
+        } finally {
+            if (previous != null) CURRENT.set(previous); else CURRENT.remove();
+        }
+    }
+
+    public static class Result<T> {
+        private final T value;
+        private final RequestProfile profile;
+
+        Result(T value, RequestProfile profile) {
+            this.value = value;
+            this.profile = profile;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public RequestProfile getProfile() {
+            return profile;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package jpabook.jpashop.profiler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 개발용 - 요청마다 SQL / 엔티티 로딩 통계를 응답 헤더(X-Profile-*)로 내려주고, N+1 이 의심되면 로그를 남긴다.
+ * 헤더를 응답이 나가기 전에 쓰려고 응답 본문을 버퍼링하므로 dev 프로필에서만 켠다. (jpashop.profiler.enabled)
+ * 스트리밍 응답(streaming-paths, 예: 주문 내보내기)은 본문을 버퍼링하지 않고 통계를 로그로만 남긴다.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "jpashop.profiler.enabled", havingValue = "true")
+public class RequestProfilingFilter extends OncePerRequestFilter {
+
+    @Value("${jpashop.profiler.n-plus-one-threshold:3}")
+    private int nPlusOneThreshold;
+
+    @Value("${jpashop.profiler.streaming-paths:/api/v6/orders/export}")
+    private Set<String> streamingPaths;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        if (streamingPaths.contains(request.getRequestURI())) {
+            RequestProfiler.start();
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                RequestProfile profile = RequestProfiler.stop();
+                log.info("{} {} [{}]", request.getMethod(), request.getRequestURI(), profile);
+                warnNPlusOne(request, profile);
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        RequestProfiler.start();
+        try {
+            filterChain.doFilter(request, wrapper);
+        } finally {
+            RequestProfile profile = RequestProfiler.stop();
+            Map<String, Integer> nPlusOne = warnNPlusOne(request, profile);
+
+            wrapper.setHeader("X-Profile-Statements", String.valueOf(profile.getStatementCount()));
+            wrapper.setHeader("X-Profile-Rows", String.valueOf(profile.getRowCount()));
+            wrapper.setHeader("X-Profile-Entity-Loads", String.valueOf(profile.getEntityLoadCount()));
+            wrapper.setHeader("X-Profile-Lazy-Loads", String.valueOf(profile.getLazyLoadCount()));
+            wrapper.setHeader("X-Profile-Max-Context-Size", String.valueOf(profile.getMaxPersistenceContextSize()));
+            wrapper.setHeader("X-Profile-N-Plus-One", String.valueOf(nPlusOne.size()));
+
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private Map<String, Integer> warnNPlusOne(HttpServletRequest request, RequestProfile profile) {
+        Map<String, Integer> nPlusOne = profile.getNPlusOneShapes(nPlusOneThreshold);
+        if (!nPlusOne.isEmpty()) {
+            log.warn("N+1 suspected. {} {} [{}] shapes = {}", request.getMethod(), request.getRequestURI(), profile, nPlusOne);
+        }
+        return nPlusOne;
+    }
+}
@@ -0,0 +1,55 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Category;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class CategoryRepository {
+
+    private final EntityManager em;
+
+    public void save(Category category) {
+        em.persist(category);
+    }
+
+    public Category findOne(Long id) {
+        return em.find(Category.class, id);
+    }
+
+    /**
+     * 전체 카테고리 [id, name, parentId] - 트리 구성용, 엔티티/컬렉션을 로딩하지 않는다.
+     */
+    public List<Object[]> findAllTreeRows() {
+        return em.createQuery(
+                        "select c.id, c.name, p.id from Category c" +
+                                " left join c.parent p" +
+                                " order by c.id", Object[].class)
+                .getResultList();
+    }
+
+    /**
+     * 하위 트리 전체 상품 (쿼리 1번)
+     * 클로저 테이블로 하위 카테고리를 찾으므로 트리 깊이와 상관없이 한번에 조회한다.
+     * 여러 하위 카테고리에 속한 상품도 한번만 나오도록 exists 로 거른다.
+     */
+    public List<ItemView> findItemViewsInSubtree(Long categoryId, int offset, int limit) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.ItemView(i.id, i.name, i.price, i.stockQuantity + i.shardStockQuantity)" +
+                                " from Item i" +
+                                " where exists (" +
+                                "   select cc.id from CategoryClosure cc" +
+                                "   join cc.descendant d" +
+                                "   join d.items di" +
+                                "   where cc.ancestor.id = :categoryId and di = i)" +
+                                " order by i.id", ItemView.class)
+                .setParameter("categoryId", categoryId)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -1,16 +1,26 @@
 package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.Item;
+import jpabook.jpashop.domain.ItemStockShard;
+import jpabook.jpashop.exception.NotEnoughStockException;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Repository
 @RequiredArgsConstructor
 public class ItemRepository {
 
+    //재고 update 전용 쿼리 스페이스 (item 2차 캐시 영역 전체가 무효화 되지 않도록 item 테이블 대신 사용)
+    private static final String STOCK_QUERY_SPACE = "item_stock";
+
     private final EntityManager em;
 
     public void save(Item item) {
@@ -28,4 +38,175 @@ public class ItemRepository {
     public List<Item> findAll() {
         return em.createQuery("SELECT i FROM Item i", Item.class).getResultList();
     }
+
+    /**
+     * 상품 목록용 조회 - 엔티티 대신 필요한 컬럼만 DTO 로 조회
+     * 재고는 item 재고 + 분할 재고의 합
+     */
+    public List<ItemView> findAllViews() {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.ItemView(i.id, i.name, i.price, i.stockQuantity + i.shardStockQuantity)" +
+                                " from Item i" +
+                                " order by i.id", ItemView.class)
+                .getResultList();
+    }
+
+    /**
+     * 상품 목록용 조회 - 바뀐 상품만
+     */
+    public List<ItemView> findViews(Collection<Long> ids) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.ItemView(i.id, i.name, i.price, i.stockQuantity + i.shardStockQuantity)" +
+                                " from Item i" +
+                                " where i.id in :ids", ItemView.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    public List<Item> findAll(Collection<Long> ids) {
+        return em.createQuery("SELECT i FROM Item i where i.id in :ids order by i.id", Item.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    /**
+     * 재고 차감 - 조건부 update 한번으로 원자적으로 처리
+     * - 조회 -> 자바에서 검사 -> 변경감지로 쓰기 방식은 동시 주문시 갱신 손실이 생기고, 락을 걸면 한 row 에서 직렬화 된다.
+     * - `stock_quantity >= 수량` 일 때만 차감되므로 재고가 음수가 되지 않는다. 갱신된 row 가 없으면 재고 부족.
+     * - 분할 재고 상품은 임의의 분할 재고부터 차감을 시도하고, 모자라면 나머지 분할 재고 -> item 재고 순으로 넘어간다.
+     *   (한 주문 수량은 한 row 에서만 차감하므로, 합계는 충분해도 모든 row 가 수량보다 적으면 재고 부족이 될 수 있다.)
+     * - 벌크 연산은 영속성 컨텍스트를 거치지 않는다. 차감 후 엔티티를 다시 읽거나 고치지 않으므로,
+     *   최신 재고가 필요하면 새로 조회한다.
+     */
+    public void removeStock(Item item, int quantity) {
+        boolean removed = (item.isStockSharded() && removeShardStock(item, quantity))
+                || removeItemStock(item, quantity);
+
+        if (!removed) {
+            throw new NotEnoughStockException("need more stock");
+        }
+    }
+
+    /**
+     * 재고 복구 (주문 취소)
+     */
+    public void addStock(Long itemId, int quantity) {
+        updateItemStock("update item set stock_quantity = stock_quantity + :quantity where item_id = :itemId",
+                itemId, quantity);
+    }
+
+    /**
+     * 재고 변경 (상품 수정)
+     * 이름, 가격 등 엔티티 변경을 먼저 flush 한다. 캐시 제거가 엔티티 update 보다 뒤에 있어야
+     * 커밋 시점에 읽어둔(변경 전) 재고로 2차 캐시가 다시 채워지지 않는다.
+     */
+    public void updateStock(Long itemId, int stockQuantity) {
+        em.flush();
+        updateItemStock("update item set stock_quantity = :quantity where item_id = :itemId",
+                itemId, stockQuantity);
+    }
+
+    /**
+     * 재고를 덮어쓰기 전(재고 분할 변경, 상품 수정)에 재고 row 에 비관적 락을 걸고 DB 의 최신 재고로 다시 읽는다.
+     * - 상품 row 를 먼저, 분할 재고 상품은 분할 재고 row 까지 잠근다.
+     * - 주문의 조건부 update 도 같은 row 락을 잡으므로, 락을 잡은 뒤 읽은 재고에서 다른 주문의 차감이 빠지지 않는다.
+     *
+     * @return 락을 잡은 시점의 전체 재고 (item 재고 + 분할 재고의 합)
+     */
+    public int lockStock(Item item) {
+        em.refresh(item, LockModeType.PESSIMISTIC_WRITE);
+        if (!item.isStockSharded()) return item.getItemStockQuantity();
+
+        List<ItemStockShard> shards = em.createQuery(
+                        "select s from ItemStockShard s where s.item.id = :itemId order by s.shardNo", ItemStockShard.class)
+                .setParameter("itemId", item.getId())
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+
+        return item.getItemStockQuantity() + shards.stream().mapToInt(ItemStockShard::getStockQuantity).sum();
+    }
+
+    private boolean removeItemStock(Item item, int quantity) {
+        return updateItemStock(
+                "update item set stock_quantity = stock_quantity - :quantity" +
+                        " where item_id = :itemId" +
+                        " and stock_quantity >= :quantity", item.getId(), quantity) > 0;
+    }
+
+    /**
+     * item 재고 update
+     * JPQL 벌크 update 는 item 2차 캐시 영역 전체를 비우기 때문에, 주문마다 실행되면 상품 캐시가 쓸모없어진다.
+     * 네이티브 쿼리에 별도 쿼리 스페이스를 지정해서 영역 전체 무효화를 막고, 변경된 상품만 캐시에서 제거한다.
+     */
+    private int updateItemStock(String sql, Long itemId, int quantity) {
+        int updated = em.createNativeQuery(sql)
+                .setParameter("quantity", quantity)
+                .setParameter("itemId", itemId)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(STOCK_QUERY_SPACE)
+                .executeUpdate();
+
+        em.getEntityManagerFactory().getCache().evict(Item.class, itemId);
+        return updated;
+    }
+
+    private boolean removeShardStock(Item item, int quantity) {
+        int shardCount = item.getStockShardCount();
+        int start = ThreadLocalRandom.current().nextInt(shardCount);
+
+        for (int i = 0; i < shardCount; i++) {
+            int updated = em.createQuery(
+                            "update ItemStockShard s set s.stockQuantity = s.stockQuantity - :quantity" +
+                                    " where s.item.id = :itemId" +
+                                    " and s.shardNo = :shardNo" +
+                                    " and s.stockQuantity >= :quantity")
+                    .setParameter("quantity", quantity)
+                    .setParameter("itemId", item.getId())
+                    .setParameter("shardNo", (start + i) % shardCount)
+                    .executeUpdate();
+
+            if (updated > 0) {
+                //분할 재고의 합(@Formula)도 item 캐시에 들어 있으므로 상품을 캐시에서 제거한다.
+                em.getEntityManagerFactory().getCache().evict(Item.class, item.getId());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 재고 일괄 복구 (벌크 연산)
+     * - 상품마다 update 한번, 상품 id 오름차순으로 실행해서 동시 실행시 교착상태를 피한다.
+     * - 분할 재고 상품도 item 재고로 복구된다. (item 재고도 전체 재고에 포함)
+     * - 벌크 연산은 영속성 컨텍스트를 거치지 않으므로 마지막에 영속성 컨텍스트를 초기화 한다.
+     *
+     * @param quantities 상품 id -> 복구할 수량 (상품 id 오름차순)
+     */
+    public void addStocks(SortedMap<Long, Integer> quantities) {
+        quantities.forEach(this::addStock);
+
+        em.clear();
+    }
+
+    /**
+     * 재고 분할 (lockStock 으로 재고 row 를 잠근 뒤 호출한다.)
+     * - totalQuantity 를 shardCount 개의 분할 재고로 나누어 저장한다. item 의 재고는 0 이 된다.
+     * - shardCount 가 0 이면 분할을 해제하고 totalQuantity 를 item 재고로 되돌린다.
+     */
+    public void shardStock(Item item, int shardCount, int totalQuantity) {
+        em.createQuery("delete from ItemStockShard s where s.item.id = :itemId")
+                .setParameter("itemId", item.getId())
+                .executeUpdate();
+
+        if (shardCount > 0) {
+            for (int shardNo = 0; shardNo < shardCount; shardNo++) {
+                int quantity = totalQuantity / shardCount + (shardNo < totalQuantity % shardCount ? 1 : 0);
+                em.persist(ItemStockShard.createShard(item, shardNo, quantity));
+            }
+        }
+        item.setStockShardCount(shardCount);
+        updateStock(item.getId(), shardCount > 0 ? 0 : totalQuantity);
+
+        em.refresh(item);
+    }
 }
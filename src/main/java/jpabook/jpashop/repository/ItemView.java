@@ -0,0 +1,22 @@
+package jpabook.jpashop.repository;
+
+import lombok.Getter;
+
+/**
+ * 상품 목록용 가벼운 조회 전용 객체 (엔티티 X, 변경 불가)
+ */
+@Getter
+public class ItemView {
+
+    private final Long id;
+    private final String name;
+    private final int price;
+    private final int stockQuantity;
+
+    public ItemView(Long id, String name, int price, int stockQuantity) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+    }
+}
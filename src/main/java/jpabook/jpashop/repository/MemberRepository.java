@@ -5,6 +5,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -17,6 +18,14 @@ public class MemberRepository {
         em.persist(member);
     }
 
+    public void flush(){
+        em.flush();
+    }
+
+    public void clear(){
+        em.clear();
+    }
+
     public Member findOne(Long id){
         return em.find(Member.class, id);
     }
@@ -25,6 +34,27 @@ public class MemberRepository {
         return em.createQuery("SELECT m FROM Member m", Member.class).getResultList();
     }
 
+    /**
+     * 회원 id, 이름 조회 (id 순 키셋 페이징)
+     *
+     * @return [id, name] 목록
+     */
+    public List<Object[]> findIdAndNames(Long afterId, int limit){
+        return em.createQuery("SELECT m.id, m.name FROM Member m where m.id > :afterId order by m.id", Object[].class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 이미 존재하는 이름 조회 (일괄 가입 중복 체크)
+     */
+    public List<String> findNamesIn(Collection<String> names){
+        return em.createQuery("SELECT m.name FROM Member m where m.name in :names", String.class)
+                .setParameter("names", names)
+                .getResultList();
+    }
+
     public List<Member> findByName(String name){
         return em.createQuery("SELECT m FROM Member m where m.name = :name", Member.class)
                 .setParameter("name", name)
@@ -1,21 +1,29 @@
 package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 @Repository
 @RequiredArgsConstructor
 public class OrderRepository {
 
     private final EntityManager em;
+    private final OrderSearchQueries orderSearchQueries;
 
     public void save(Order order) {
         em.persist(order);
@@ -25,10 +33,59 @@ public class OrderRepository {
         return em.find(Order.class, id);
     }
 
-    // TODO : queryDsl 로 변경해야함
-//    public List<Order> findAll(OrderSearch orderSearch) {
-//
-//    }
+    /**
+     * 일괄 취소 대상 주문 조회
+     * 같은 주문이 동시에 취소되어 재고가 두번 복구되지 않도록 상태를 바꿀 때까지 row 를 잠근다.(select ... for update)
+     */
+    public List<Order> findAllWithDeliveryForUpdate(Collection<Long> orderIds) {
+        return em.createQuery(
+                        "select o from Order o" +
+                                " join fetch o.delivery d" +
+                                " where o.id in :orderIds" +
+                                " order by o.id", Order.class)
+                .setParameter("orderIds", orderIds)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
+    /**
+     * 주문들의 상품별 주문 수량 합계
+     *
+     * @return 상품 id -> 수량 합계 (상품 id 오름차순)
+     */
+    public SortedMap<Long, Integer> sumCountByItem(Collection<Long> orderIds) {
+        List<Object[]> rows = em.createQuery(
+                        "select oi.item.id, sum(oi.count) from OrderItem oi" +
+                                " where oi.order.id in :orderIds" +
+                                " group by oi.item.id", Object[].class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+
+        SortedMap<Long, Integer> result = new TreeMap<>();
+        for (Object[] row : rows) {
+            result.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        return result;
+    }
+
+    /**
+     * 주문 상태 일괄 취소 (벌크 연산)
+     */
+    public int cancelAll(Collection<Long> orderIds) {
+        return em.createQuery("update Order o set o.status = :status where o.id in :orderIds")
+                .setParameter("status", OrderStatus.CANCEL)
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+    }
+
+    /**
+     * 주문 검색 - 시작할 때 미리 만들어 둔 검색 쿼리(OrderSearchQueries)에 파라미터만 바인딩한다.
+     */
+    public List<Order> findAll(OrderSearch orderSearch) {
+        if (orderSearch.hasMemberIds() && orderSearch.getMemberIds().isEmpty()) return Collections.emptyList();
+
+        return orderSearchQueries.createQuery(em, orderSearch).getResultList();
+    }
 
     /**
      * 쓸만한게 아니다..그냥 적어놨음..
@@ -50,7 +107,17 @@ public class OrderRepository {
         }
 
         //회원 이름 검색
-        if (StringUtils.hasText(orderSearch.getMemberName())) {
+        if (orderSearch.hasMemberIds()) {
+            if (orderSearch.getMemberIds().isEmpty()) return Collections.emptyList();
+
+            if (isFirstCondition) {
+                jpql += " where";
+                isFirstCondition = false;
+            } else {
+                jpql += " and";
+            }
+            jpql += " m.id in :memberIds";
+        } else if (StringUtils.hasText(orderSearch.getMemberName())) {
             if (isFirstCondition) {
                 jpql += " where";
                 isFirstCondition = false;
@@ -60,15 +127,90 @@ public class OrderRepository {
             jpql += " m.name like :name";
         }
 
+        //주문일 범위 검색
+        if (orderSearch.getOrderDateStart() != null) {
+            if (isFirstCondition) {
+                jpql += " where";
+                isFirstCondition = false;
+            } else {
+                jpql += " and";
+            }
+            jpql += " o.orderDate >= :orderDateStart";
+        }
+        if (orderSearch.getOrderDateEnd() != null) {
+            if (isFirstCondition) {
+                jpql += " where";
+                isFirstCondition = false;
+            } else {
+                jpql += " and";
+            }
+            jpql += " o.orderDate < :orderDateEnd";
+        }
+
+        //주문 금액 범위 검색
+        if (orderSearch.getMinTotalPrice() != null) {
+            if (isFirstCondition) {
+                jpql += " where";
+                isFirstCondition = false;
+            } else {
+                jpql += " and";
+            }
+            jpql += " o.totalPrice >= :minTotalPrice";
+        }
+        if (orderSearch.getMaxTotalPrice() != null) {
+            if (isFirstCondition) {
+                jpql += " where";
+                isFirstCondition = false;
+            } else {
+                jpql += " and";
+            }
+            jpql += " o.totalPrice <= :maxTotalPrice";
+        }
+
+        //키셋 페이징 커서
+        OrderCursor cursor = orderSearch.getOrderCursor();
+        if (cursor != null) {
+            if (isFirstCondition) {
+                jpql += " where";
+                isFirstCondition = false;
+            } else {
+                jpql += " and";
+            }
+            jpql += orderSearch.getSortOrDefault().isDescending()
+                    ? " o.orderDate <= :cursorDate and (o.orderDate < :cursorDate or o.id < :cursorId)"
+                    : " o.orderDate >= :cursorDate and (o.orderDate > :cursorDate or o.id > :cursorId)";
+        }
+
+        jpql += " order by " + orderSearch.getSortOrDefault().getJpql();
+
         TypedQuery<Order> query = em.createQuery(jpql, Order.class)
-                .setMaxResults(1000);
+                .setFirstResult(orderSearch.getOffset())
+                .setMaxResults(orderSearch.getLimit());
 
         if (orderSearch.getOrderStatus() != null) {
             query = query.setParameter("status", orderSearch.getOrderStatus());
         }
-        if (StringUtils.hasText(orderSearch.getMemberName())) {
+        if (orderSearch.hasMemberIds()) {
+            query = query.setParameter("memberIds", orderSearch.getMemberIds());
+        } else if (StringUtils.hasText(orderSearch.getMemberName())) {
             query = query.setParameter("name", orderSearch.getMemberName());
         }
+        if (orderSearch.getOrderDateStart() != null) {
+            query = query.setParameter("orderDateStart", orderSearch.getOrderDateStart());
+        }
+        if (orderSearch.getOrderDateEnd() != null) {
+            query = query.setParameter("orderDateEnd", orderSearch.getOrderDateEnd());
+        }
+        if (orderSearch.getMinTotalPrice() != null) {
+            query = query.setParameter("minTotalPrice", orderSearch.getMinTotalPrice());
+        }
+        if (orderSearch.getMaxTotalPrice() != null) {
+            query = query.setParameter("maxTotalPrice", orderSearch.getMaxTotalPrice());
+        }
+        if (cursor != null) {
+            query = query.setParameter("cursorDate", cursor.getOrderDate());
+            query = query.setParameter("cursorId", cursor.getOrderId());
+        }
 
         return query.getResultList();
     }
@@ -90,14 +232,54 @@ public class OrderRepository {
             criteria.add(status);
         }
         //회원 이름 검색
-        if (StringUtils.hasText(orderSearch.getMemberName())) {
+        if (orderSearch.hasMemberIds()) {
+            if (orderSearch.getMemberIds().isEmpty()) return Collections.emptyList();
+
+            Predicate memberIds = m.get("id").in(orderSearch.getMemberIds());
+            criteria.add(memberIds);
+        } else if (StringUtils.hasText(orderSearch.getMemberName())) {
             Predicate name =
                     cb.like(m.<String>get("name"), "%" + orderSearch.getMemberName() + "%");
             criteria.add(name);
         }
+        //주문일 범위 검색
+        if (orderSearch.getOrderDateStart() != null) {
+            criteria.add(cb.greaterThanOrEqualTo(o.<LocalDateTime>get("orderDate"), orderSearch.getOrderDateStart()));
+        }
+        if (orderSearch.getOrderDateEnd() != null) {
+            criteria.add(cb.lessThan(o.<LocalDateTime>get("orderDate"), orderSearch.getOrderDateEnd()));
+        }
+        //주문 금액 범위 검색
+        if (orderSearch.getMinTotalPrice() != null) {
+            criteria.add(cb.ge(o.<Integer>get("totalPrice"), orderSearch.getMinTotalPrice()));
+        }
+        if (orderSearch.getMaxTotalPrice() != null) {
+            criteria.add(cb.le(o.<Integer>get("totalPrice"), orderSearch.getMaxTotalPrice()));
+        }
+
+        OrderSearchSort sort = orderSearch.getSortOrDefault();
+        boolean desc = sort.isDescending();
 
+        //키셋 페이징 커서
+        OrderCursor cursor = orderSearch.getOrderCursor();
+        if (cursor != null) {
+            Path<LocalDateTime> orderDate = o.get("orderDate");
+            Path<Long> id = o.get("id");
+            criteria.add(desc
+                    ? cb.lessThanOrEqualTo(orderDate, cursor.getOrderDate())
+                    : cb.greaterThanOrEqualTo(orderDate, cursor.getOrderDate()));
+            criteria.add(desc
+                    ? cb.or(cb.lessThan(orderDate, cursor.getOrderDate()), cb.lessThan(id, cursor.getOrderId()))
+                    : cb.or(cb.greaterThan(orderDate, cursor.getOrderDate()), cb.greaterThan(id, cursor.getOrderId())));
+        }
+
+        Path<Object> sortKey = o.get(sort.isOrderDate() ? "orderDate" : "totalPrice");
         cq.where(cb.and(criteria.toArray(new Predicate[criteria.size()])));
-        TypedQuery<Order> query = em.createQuery(cq).setMaxResults(1000);
+        cq.orderBy(desc ? cb.desc(sortKey) : cb.asc(sortKey),
+                desc ? cb.desc(o.get("id")) : cb.asc(o.get("id")));
+        TypedQuery<Order> query = em.createQuery(cq)
+                .setFirstResult(orderSearch.getOffset())
+                .setMaxResults(orderSearch.getLimit());
         return query.getResultList();
     }
 
@@ -128,4 +310,32 @@ public class OrderRepository {
                 .setMaxResults(limit)
                 .getResultList();
     }
+
+    /**
+     * 키셋(seek) 페이징
+     * - offset 페이징은 앞의 offset 개 row 를 읽고 버려야 하므로 뒤 페이지로 갈수록 느려진다.
+     * - (order_date, order_id) 인덱스를 타고 커서 다음 위치부터 limit 개만 읽으므로 몇번째 페이지든 비용이 같다.
+     * - 컬렉션(orderItems)은 V3.1 과 같이 default_batch_fetch_size 로 IN 조회한다.
+     */
+    public List<Order> findAllWithMemberDelivery(OrderCursor cursor, int limit) {
+        String jpql = "select o from Order o" +
+                " join fetch o.member m" +
+                " join fetch o.delivery d";
+
+        if (cursor != null) {
+            jpql += " where o.orderDate >= :orderDate" +
+                    " and (o.orderDate > :orderDate or o.id > :orderId)";
+        }
+        jpql += " order by o.orderDate, o.id";
+
+        TypedQuery<Order> query = em.createQuery(jpql, Order.class)
+                .setMaxResults(limit);
+
+        if (cursor != null) {
+            query.setParameter("orderDate", cursor.getOrderDate());
+            query.setParameter("orderId", cursor.getOrderId());
+        }
+
+        return query.getResultList();
+    }
 }
\ No newline at end of file
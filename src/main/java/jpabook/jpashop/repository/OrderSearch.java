@@ -3,11 +3,87 @@ package jpabook.jpashop.repository;
 import jpabook.jpashop.domain.OrderStatus;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Set;
 
 @Getter
 @Setter
 public class OrderSearch {
 
+    public static final int DEFAULT_SIZE = 100;
+    public static final int MAX_SIZE = 1000;
+
     private String memberName; //회원 이름
     private OrderStatus orderStatus; //주문 상태[ORDER, CANCEL]
+
+    //주문일 범위 (from, to 포함)
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate orderDateFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate orderDateTo;
+
+    //주문 금액 범위 (포함)
+    private Integer minTotalPrice;
+    private Integer maxTotalPrice;
+
+    private OrderSearchSort sort = OrderSearchSort.ORDER_DATE_DESC;
+    private int page; //0 부터 시작, cursor 가 있으면 무시한다.
+    private int size = DEFAULT_SIZE;
+    private String cursor; //주문일 정렬에서 직전 페이지 마지막 주문의 OrderCursor
+
+    //회원 이름 인덱스(MemberNameIndex)로 찾은 회원 id, 값이 있으면 회원 이름 LIKE 검색 대신 사용한다.
+    private Set<Long> memberIds;
+
+    /**
+     * 페이징 파라미터가 없는 조회(V1, V2 예제 API)용 - 이전과 같이 최대 MAX_SIZE 건까지 조회한다.
+     */
+    public static OrderSearch withMaxSize() {
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setSize(MAX_SIZE);
+        return orderSearch;
+    }
+
+    public boolean hasMemberIds() {
+        return memberIds != null;
+    }
+
+    public LocalDateTime getOrderDateStart() {
+        return orderDateFrom == null ? null : orderDateFrom.atStartOfDay();
+    }
+
+    //to 날짜를 포함하도록 다음날 0시 미만으로 검색한다.
+    public LocalDateTime getOrderDateEnd() {
+        return orderDateTo == null ? null : orderDateTo.plusDays(1).atStartOfDay();
+    }
+
+    public OrderSearchSort getSortOrDefault() {
+        return sort == null ? OrderSearchSort.ORDER_DATE_DESC : sort;
+    }
+
+    public int getLimit() {
+        return Math.min(Math.max(size, 1), MAX_SIZE);
+    }
+
+    public int getOffset() {
+        return hasCursor() ? 0 : Math.max(page, 0) * getLimit();
+    }
+
+    public boolean hasCursor() {
+        return StringUtils.hasText(cursor);
+    }
+
+    /**
+     * 키셋 페이징 커서, 커서는 주문일 정렬에서만 사용할 수 있다.
+     */
+    public OrderCursor getOrderCursor() {
+        if (!hasCursor()) return null;
+        if (!getSortOrDefault().isOrderDate()) {
+            throw new IllegalArgumentException("커서는 주문일 정렬에서만 사용할 수 있습니다. sort = " + sort);
+        }
+        return OrderCursor.decode(cursor);
+    }
 }
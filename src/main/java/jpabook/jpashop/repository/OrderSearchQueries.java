@@ -0,0 +1,167 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderSummary;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+
+/**
+ * 주문 검색 쿼리 모양(shape) 미리 컴파일
+ * - OrderSearch 의 검색 조건은 "있다/없다" 조합이 유한하므로, 조건 조합(bit) x 정렬 별 JPQL 을 시작할 때 모두 만든다.
+ * - 만든 JPQL 은 named query 로 등록해서 파싱/플랜을 한번만 만들고(plan cache), 요청마다 파라미터만 바인딩한다.
+ * - 요청마다 문자열을 이어 붙이거나(findAllByString) Criteria 를 새로 만드는(findAllByCriteria) 비용이 없다.
+ * - 같은 검색 조건으로 주문 엔티티(Order)와 주문 요약(OrderSummary) 을 조회하는 쿼리를 각각 만든다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderSearchQueries {
+
+    static final int STATUS = 1;
+    static final int MEMBER_IDS = 1 << 1;
+    static final int MEMBER_NAME = 1 << 2;
+    static final int DATE_START = 1 << 3;
+    static final int DATE_END = 1 << 4;
+    static final int MIN_PRICE = 1 << 5;
+    static final int MAX_PRICE = 1 << 6;
+    static final int CURSOR = 1 << 7;
+    private static final int SHAPE_COUNT = 1 << 8;
+
+    /**
+     * 검색 대상 - 주문 엔티티는 회원을 조인하고, 주문 요약은 반정규화된 회원 컬럼을 바로 쓴다.
+     */
+    enum Target {
+        ORDER(Order.class, "Order.search.", "select o from Order o join o.member m", "o.id", "m.id", "m.name"),
+        SUMMARY(OrderSummary.class, "OrderSummary.search.", "select o from OrderSummary o", "o.orderId", "o.memberId", "o.memberName");
+
+        private final Class<?> resultClass;
+        private final String namePrefix;
+        private final String select;
+        private final String idPath;
+        private final String memberIdPath;
+        private final String memberNamePath;
+
+        Target(Class<?> resultClass, String namePrefix, String select, String idPath, String memberIdPath, String memberNamePath) {
+            this.resultClass = resultClass;
+            this.namePrefix = namePrefix;
+            this.select = select;
+            this.idPath = idPath;
+            this.memberIdPath = memberIdPath;
+            this.memberNamePath = memberNamePath;
+        }
+    }
+
+    private final EntityManagerFactory emf;
+
+    @PostConstruct
+    public void init() {
+        EntityManager em = emf.createEntityManager();
+        int count = 0;
+        try {
+            for (Target target : Target.values()) {
+                for (OrderSearchSort sort : OrderSearchSort.values()) {
+                    for (int shape = 0; shape < SHAPE_COUNT; shape++) {
+                        if (!isValid(shape, sort)) continue;
+                        emf.addNamedQuery(name(target, shape, sort), em.createQuery(jpql(target, shape, sort), target.resultClass));
+                        count++;
+                    }
+                }
+            }
+        } finally {
+            em.close();
+        }
+        log.info("order search query shapes registered. count = {}", count);
+    }
+
+    /**
+     * 검색 조건에 맞는 미리 만든 쿼리를 꺼내 파라미터를 바인딩한다.
+     */
+    public TypedQuery<Order> createQuery(EntityManager em, OrderSearch orderSearch) {
+        return createQuery(em, orderSearch, Target.ORDER, Order.class);
+    }
+
+    /**
+     * 주문 요약(OrderSummary) 검색 - 조건과 정렬은 주문 검색과 같다.
+     */
+    public TypedQuery<OrderSummary> createSummaryQuery(EntityManager em, OrderSearch orderSearch) {
+        return createQuery(em, orderSearch, Target.SUMMARY, OrderSummary.class);
+    }
+
+    private <T> TypedQuery<T> createQuery(EntityManager em, OrderSearch orderSearch, Target target, Class<T> resultClass) {
+        OrderSearchSort sort = orderSearch.getSortOrDefault();
+        OrderCursor cursor = orderSearch.getOrderCursor();
+        int shape = shape(orderSearch, cursor);
+
+        TypedQuery<T> query = em.createNamedQuery(name(target, shape, sort), resultClass)
+                .setFirstResult(orderSearch.getOffset())
+                .setMaxResults(orderSearch.getLimit());
+
+        if ((shape & STATUS) != 0) query.setParameter("status", orderSearch.getOrderStatus());
+        if ((shape & MEMBER_IDS) != 0) query.setParameter("memberIds", orderSearch.getMemberIds());
+        if ((shape & MEMBER_NAME) != 0) query.setParameter("name", "%" + orderSearch.getMemberName() + "%");
+        if ((shape & DATE_START) != 0) query.setParameter("orderDateStart", orderSearch.getOrderDateStart());
+        if ((shape & DATE_END) != 0) query.setParameter("orderDateEnd", orderSearch.getOrderDateEnd());
+        if ((shape & MIN_PRICE) != 0) query.setParameter("minTotalPrice", orderSearch.getMinTotalPrice());
+        if ((shape & MAX_PRICE) != 0) query.setParameter("maxTotalPrice", orderSearch.getMaxTotalPrice());
+        if ((shape & CURSOR) != 0) {
+            query.setParameter("cursorDate", cursor.getOrderDate());
+            query.setParameter("cursorId", cursor.getOrderId());
+        }
+        return query;
+    }
+
+    static int shape(OrderSearch orderSearch, OrderCursor cursor) {
+        int shape = 0;
+        if (orderSearch.getOrderStatus() != null) shape |= STATUS;
+        if (orderSearch.hasMemberIds()) {
+            shape |= MEMBER_IDS;
+        } else if (StringUtils.hasText(orderSearch.getMemberName())) {
+            shape |= MEMBER_NAME;
+        }
+        if (orderSearch.getOrderDateStart() != null) shape |= DATE_START;
+        if (orderSearch.getOrderDateEnd() != null) shape |= DATE_END;
+        if (orderSearch.getMinTotalPrice() != null) shape |= MIN_PRICE;
+        if (orderSearch.getMaxTotalPrice() != null) shape |= MAX_PRICE;
+        if (cursor != null) shape |= CURSOR;
+        return shape;
+    }
+
+    //회원 id 와 회원 이름은 함께 쓰지 않고, 커서는 주문일 정렬에서만 쓴다.
+    private static boolean isValid(int shape, OrderSearchSort sort) {
+        if ((shape & MEMBER_IDS) != 0 && (shape & MEMBER_NAME) != 0) return false;
+        return (shape & CURSOR) == 0 || sort.isOrderDate();
+    }
+
+    private static String name(Target target, int shape, OrderSearchSort sort) {
+        return target.namePrefix + sort.name() + "." + shape;
+    }
+
+    static String jpql(Target target, int shape, OrderSearchSort sort) {
+        StringBuilder where = new StringBuilder();
+        if ((shape & STATUS) != 0) and(where, "o.status = :status");
+        if ((shape & MEMBER_IDS) != 0) and(where, target.memberIdPath + " in :memberIds");
+        if ((shape & MEMBER_NAME) != 0) and(where, target.memberNamePath + " like :name");
+        if ((shape & DATE_START) != 0) and(where, "o.orderDate >= :orderDateStart");
+        if ((shape & DATE_END) != 0) and(where, "o.orderDate < :orderDateEnd");
+        if ((shape & MIN_PRICE) != 0) and(where, "o.totalPrice >= :minTotalPrice");
+        if ((shape & MAX_PRICE) != 0) and(where, "o.totalPrice <= :maxTotalPrice");
+        if ((shape & CURSOR) != 0) {
+            and(where, sort.isDescending()
+                    ? "o.orderDate <= :cursorDate and (o.orderDate < :cursorDate or " + target.idPath + " < :cursorId)"
+                    : "o.orderDate >= :cursorDate and (o.orderDate > :cursorDate or " + target.idPath + " > :cursorId)");
+        }
+
+        return target.select + where + " order by " + sort.getJpql(target.idPath);
+    }
+
+    private static void and(StringBuilder where, String condition) {
+        where.append(where.length() == 0 ? " where " : " and ").append(condition);
+    }
+}
@@ -0,0 +1,38 @@
+package jpabook.jpashop.repository;
+
+/**
+ * 주문 검색 정렬
+ * - 같은 값의 순서가 페이지마다 바뀌지 않도록 모두 주문 id 를 마지막 정렬 기준으로 사용한다.
+ */
+public enum OrderSearchSort {
+
+    ORDER_DATE_DESC("o.orderDate", "desc"),
+    ORDER_DATE_ASC("o.orderDate", "asc"),
+    TOTAL_PRICE_DESC("o.totalPrice", "desc"),
+    TOTAL_PRICE_ASC("o.totalPrice", "asc");
+
+    private final String path;
+    private final String direction;
+
+    OrderSearchSort(String path, String direction) {
+        this.path = path;
+        this.direction = direction;
+    }
+
+    public String getJpql() {
+        return getJpql("o.id");
+    }
+
+    //주문 id 경로가 다른 조회용 (OrderSummary 는 o.orderId)
+    public String getJpql(String idPath) {
+        return path + " " + direction + ", " + idPath + " " + direction;
+    }
+
+    public boolean isOrderDate() {
+        return this == ORDER_DATE_DESC || this == ORDER_DATE_ASC;
+    }
+
+    public boolean isDescending() {
+        return this == ORDER_DATE_DESC || this == TOTAL_PRICE_DESC;
+    }
+}
@@ -0,0 +1,51 @@
+package jpabook.jpashop.repository.member.query;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * 회원 목록 조회 전용 - 엔티티 대신 필요한 컬럼만 DTO 로 바로 조회한다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MemberQueryRepository {
+
+    private final EntityManager em;
+
+    @Value("${jpashop.member-query.count-ttl-millis:60000}")
+    private long countTtlMillis;
+
+    private volatile long cachedCount = -1;
+    private volatile long cachedAt;
+
+    /**
+     * 키셋 페이징 - afterId 다음 회원부터 limit 명, PK 인덱스 순서대로 읽는다.
+     * 영속성 컨텍스트에 엔티티가 올라가지 않으므로 메모리는 페이지 크기만큼만 쓴다.
+     */
+    public List<MemberQueryDto> findMemberQueryDtos(Long afterId, int limit) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.member.query.MemberQueryDto(m.id, m.name)" +
+                                " from Member m" +
+                                " where m.id > :afterId" +
+                                " order by m.id", MemberQueryDto.class)
+                .setParameter("afterId", afterId == null ? 0L : afterId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 대략적인 전체 회원 수 - count(*) 는 테이블 전체를 읽으므로 ttl 동안 캐시한 값을 돌려준다.
+     */
+    public long countApproximately() {
+        long now = System.currentTimeMillis();
+        if (cachedCount < 0 || now - cachedAt > countTtlMillis) {
+            cachedCount = em.createQuery("select count(m) from Member m", Long.class).getSingleResult();
+            cachedAt = now;
+        }
+        return cachedCount;
+    }
+}
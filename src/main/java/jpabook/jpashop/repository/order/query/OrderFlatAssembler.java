@@ -0,0 +1,50 @@
+package jpabook.jpashop.repository.order.query;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 플랫 row -> OrderQueryDto 조립
+ * - order id 로 정렬된 row 를 앞에서부터 한번만 훑으면서, order id 가 바뀌는 시점에 주문 1건을 완성한다.
+ * - groupingBy 처럼 row 마다 키용 DTO 를 만들거나 전체 결과에 대한 Map 을 만들지 않고, 정렬 순서도 그대로 유지된다.
+ * - Iterator 로 동작하므로 스트리밍 조회 결과에도 그대로 사용할 수 있다.
+ */
+public class OrderFlatAssembler implements Iterator<OrderQueryDto> {
+
+    private final Iterator<OrderFlatDto> flats;
+    private OrderFlatDto pending; //아직 주문에 담지 않은 다음 row
+
+    public OrderFlatAssembler(Iterator<OrderFlatDto> flats) {
+        this.flats = flats;
+        this.pending = flats.hasNext() ? flats.next() : null;
+    }
+
+    public static List<OrderQueryDto> assemble(List<OrderFlatDto> sortedFlats) {
+        List<OrderQueryDto> result = new ArrayList<>();
+        new OrderFlatAssembler(sortedFlats.iterator()).forEachRemaining(result::add);
+        return result;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return pending != null;
+    }
+
+    @Override
+    public OrderQueryDto next() {
+        if (pending == null) throw new NoSuchElementException();
+
+        OrderFlatDto first = pending;
+        List<OrderItemQueryDto> orderItems = new ArrayList<>();
+        OrderQueryDto order = new OrderQueryDto(first.getOrderId(), first.getName(), first.getOrderDate(), first.getOrderStatus(), first.getAddress(), first.getTotalPrice(), orderItems);
+
+        do {
+            orderItems.add(new OrderItemQueryDto(pending.getOrderId(), pending.getItemName(), pending.getOrderPrice(), pending.getCount()));
+            pending = flats.hasNext() ? flats.next() : null;
+        } while (pending != null && pending.getOrderId().equals(first.getOrderId()));
+
+        return order;
+    }
+}
@@ -1,18 +1,64 @@
 package jpabook.jpashop.repository.order.query;
 
+import jpabook.jpashop.jfr.OrderAssemblyEvent;
+import jpabook.jpashop.profiler.RequestProfiler;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Slf4j
 @Repository
 @RequiredArgsConstructor
 public class OrderQueryRepository {
 
     private final EntityManager em;
+    private final PlatformTransactionManager transactionManager;
+
+    //IN 절 하나에 담을 주문 id 수 (default_batch_fetch_size 와 맞춘다)
+    @Value("${jpashop.order-query.chunk-size:1000}")
+    private int chunkSize;
+
+    //chunk 조회를 돕는 워커 스레드 수 (워커마다 커넥션을 하나씩 더 쓴다)
+    @Value("${jpashop.order-query.parallelism:4}")
+    private int parallelism;
+
+    private ExecutorService chunkExecutor;
+    private TransactionTemplate workerTransaction;
+
+    @PostConstruct
+    public void init() {
+        chunkExecutor = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("order-query-"));
+
+        //워커는 읽기 전용 트랜잭션을 시작해서 커넥션부터 잡은 뒤에 chunk 를 가져간다.
+        workerTransaction = new TransactionTemplate(transactionManager);
+        workerTransaction.setReadOnly(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        chunkExecutor.shutdown();
+    }
 
     /**
      * 컬렉션은 별도로 조회
@@ -24,24 +70,30 @@ public class OrderQueryRepository {
         List<OrderQueryDto> result = findOrders();
 
         //류프를 돌면서 컬렉션 추가(추가 쿼리 실행)
-        result.forEach(o -> {
+        OrderAssemblyEvent event = OrderAssemblyEvent.start("V4_ORDER_ITEMS_PER_ORDER");
+        int rows = 0;
+        for (OrderQueryDto o : result) {
             List<OrderItemQueryDto> orderItems = findOrderItems(o.getOrderId());
             o.setOrderItems(orderItems);
-        });
+            rows += orderItems.size();
+        }
+        commit(event.rows(rows), result);
 
         return result;
     }
 
     /**
      * 1:N 관계(컬렉션)를 제외한 나머지를 한번에 조회
+     * 주문 요약(order_summary) 한 테이블에서 읽으므로 orders, member, delivery 조인이 필요 없다.
      */
     private List<OrderQueryDto> findOrders() {
-        return em.createQuery(
-                        "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
-                                " from Order o" +
-                                " join o.member m" +
-                                " join o.delivery d", OrderQueryDto.class)
+        OrderAssemblyEvent event = OrderAssemblyEvent.start("ROOT_QUERY");
+        List<OrderQueryDto> result = em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.OrderQueryDto(s.orderId, s.memberName, s.orderDate, s.status, s.address, s.totalPrice)" +
+                                " from OrderSummary s", OrderQueryDto.class)
                 .getResultList();
+        commit(event.rows(result.size()), result);
+        return result;
     }
 
     /**
@@ -67,11 +119,15 @@ public class OrderQueryRepository {
         //루트 조회(toOne 코드를 모두 한번에 조회)
         List<OrderQueryDto> result = findOrders();
 
-        //orderItem 컬렉션을 MAP 한방에 조회
+        //orderItem 컬렉션을 MAP 으로 조회 (chunk 단위 IN 쿼리, chunk 가 여럿이면 병렬 조회)
+        OrderAssemblyEvent event = OrderAssemblyEvent.start("V5_ORDER_ITEM_IN_QUERY");
         Map<Long, List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(toOrderIds(result));
+        commit(event.rows(orderItemMap.values().stream().mapToInt(List::size).sum()), result);
 
         //루프를 돌면서 컬렉션 추가(추가 쿼리 실행X)
+        event = OrderAssemblyEvent.start("V5_ASSEMBLE");
         result.forEach(o -> o.setOrderItems(orderItemMap.get(o.getOrderId())));
+        commit(event, result);
 
         return result;
     }
@@ -82,23 +138,103 @@ public class OrderQueryRepository {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * orderItem 컬렉션을 chunkSize 단위의 IN 쿼리로 나누어 조회
+     * - 주문이 수만 건이면 IN 절 하나로는 DB 의 파라미터 제한을 넘고, 쿼리 플랜도 거대해진다.
+     * - chunk 가 여러개면 요청 스레드와 워커 스레드가 남은 chunk 를 하나씩 가져가서 동시에 조회한 뒤 하나의 Map 으로 합친다.
+     * - 요청 스레드는 OSIV 로 커넥션을 이미 들고 있고, 워커는 커넥션을 하나씩 더 써야 한다.
+     *   커넥션 풀이 요청들로 가득 차서 워커가 커넥션을 못 얻어도 교착상태가 되지 않도록,
+     *   워커는 커넥션을 잡은 뒤에만 chunk 를 가져가고, 요청 스레드는 남은 chunk 를 자기 커넥션으로 모두 조회한다.
+     *   (풀이 바쁘면 요청 스레드 혼자 순서대로 조회하는 것과 같아진다.)
+     * - 워커 스레드는 별도 트랜잭션에서 조회하므로, 커밋되지 않은 데이터는 보이지 않는다. (조회 API 전용)
+     */
     private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
-        List<OrderItemQueryDto> orderItems = em.createQuery(
+        if (orderIds.isEmpty()) return Collections.emptyMap();
+
+        List<List<Long>> chunks = toChunks(orderIds);
+        if (chunks.size() == 1) {
+            return groupByOrderId(findOrderItemsIn(orderIds));
+        }
+
+        List<CompletableFuture<List<OrderItemQueryDto>>> futures = chunks.stream()
+                .map(chunk -> new CompletableFuture<List<OrderItemQueryDto>>())
+                .collect(Collectors.toList());
+        AtomicInteger nextChunk = new AtomicInteger();
+        Runnable drain = () -> {
+            for (int i = nextChunk.getAndIncrement(); i < chunks.size(); i = nextChunk.getAndIncrement()) {
+                complete(futures.get(i), chunks.get(i));
+            }
+        };
+
+        int workers = Math.min(parallelism, chunks.size() - 1);
+        for (int i = 0; i < workers; i++) {
+            //워커에서 실행한 SQL 도 요청의 프로파일에 센다.
+            chunkExecutor.execute(RequestProfiler.wrap(() -> {
+                //큐에서 기다리는 동안 요청 스레드가 모두 조회했으면 커넥션을 잡지 않는다.
+                if (nextChunk.get() < chunks.size()) runWorker(drain);
+            }));
+        }
+        drain.run();
+
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = new HashMap<>();
+        for (CompletableFuture<List<OrderItemQueryDto>> future : futures) {
+            orderItemMap.putAll(groupByOrderId(join(future)));
+        }
+        return orderItemMap;
+    }
+
+    private void runWorker(Runnable drain) {
+        try {
+            workerTransaction.executeWithoutResult(status -> drain.run());
+        } catch (RuntimeException e) {
+            //커넥션을 얻지 못한 워커는 chunk 를 가져가지 않았으므로, 남은 chunk 는 요청 스레드가 조회한다.
+            log.debug("order-query worker skipped", e);
+        }
+    }
+
+    private void complete(CompletableFuture<List<OrderItemQueryDto>> future, List<Long> chunk) {
+        try {
+            future.complete(findOrderItemsIn(chunk));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private List<OrderItemQueryDto> findOrderItemsIn(List<Long> orderIds) {
+        return em.createQuery(
                         "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
                                 " from OrderItem oi" +
                                 " join oi.item i" +
                                 " where oi.order.id in :orderIds", OrderItemQueryDto.class)
                 .setParameter("orderIds", orderIds)
                 .getResultList();
+    }
 
+    private Map<Long, List<OrderItemQueryDto>> groupByOrderId(List<OrderItemQueryDto> orderItems) {
         return orderItems.stream()
                 .collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId));
     }
 
+    private List<List<Long>> toChunks(List<Long> orderIds) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < orderIds.size(); from += chunkSize) {
+            chunks.add(orderIds.subList(from, Math.min(from + chunkSize, orderIds.size())));
+        }
+        return chunks;
+    }
+
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
 
     public List<OrderFlatDto> findAllByDto_flat() {
         return em.createQuery(
-                        "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
+                        "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, o.totalPrice, i.name, oi.orderPrice, oi.count)" +
                                 " from Order o" +
                                 " join o.member m" +
                                 " join o.delivery d" +
@@ -106,4 +242,67 @@ public class OrderQueryRepository {
                                 " join oi.item i", OrderFlatDto.class)
                 .getResultList();
     }
+
+    /**
+     * 플랫 데이터 페이징 조회
+     * - 주문 id 윈도우(offset, limit)를 먼저 id 만으로 가볍게 조회한 뒤, 그 주문들만 플랫 조인한다.
+     *   (JPQL 은 서브쿼리에 limit 을 걸 수 없어서 id 윈도우 조회를 분리했다. PK 인덱스만 읽는다.)
+     * - row 수가 아닌 주문 수 기준으로 페이징 되고, order id 순으로 정렬되어 있어 OrderFlatAssembler 로 한번에 조립할 수 있다.
+     */
+    public List<OrderFlatDto> findAllByDto_flat(int offset, int limit) {
+        OrderAssemblyEvent event = OrderAssemblyEvent.start("V6_1_ID_WINDOW");
+        List<Long> orderIds = em.createQuery("select o.id from Order o order by o.id", Long.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+        event.rows(orderIds.size());
+        if (!orderIds.isEmpty()) event.orders(orderIds.size(), orderIds.get(0), orderIds.get(orderIds.size() - 1));
+        event.commit();
+
+        if (orderIds.isEmpty()) return Collections.emptyList();
+
+        event = OrderAssemblyEvent.start("V6_1_FLAT_QUERY");
+        List<OrderFlatDto> flats = em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, o.totalPrice, i.name, oi.orderPrice, oi.count)" +
+                                " from Order o" +
+                                " join o.member m" +
+                                " join o.delivery d" +
+                                " join o.orderItems oi" +
+                                " join oi.item i" +
+                                " where o.id in :orderIds" +
+                                " order by o.id", OrderFlatDto.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+        event.rows(flats.size())
+                .orders(orderIds.size(), orderIds.get(0), orderIds.get(orderIds.size() - 1))
+                .commit();
+        return flats;
+    }
+
+    //JFR 이벤트에 주문 수, 첫/마지막 주문 id 를 채워서 기록
+    private void commit(OrderAssemblyEvent event, List<OrderQueryDto> orders) {
+        if (!orders.isEmpty()) {
+            event.orders(orders.size(), orders.get(0).getOrderId(), orders.get(orders.size() - 1).getOrderId());
+        }
+        event.commit();
+    }
+
+    /**
+     * 플랫 데이터 스트리밍 조회
+     * - 결과 전체를 List 로 올리지 않고 forward-only 커서로 fetchSize 만큼씩 DB 에서 가져온다.
+     * - 같은 주문의 row 가 연속으로 오도록 order id 로 정렬한다.
+     * - 커넥션을 물고 있으므로 트랜잭션 안에서 사용하고, 다 쓰면 반드시 close 해야 한다.
+     */
+    public Stream<OrderFlatDto> streamAllByDto_flat(int fetchSize) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, o.totalPrice, i.name, oi.orderPrice, oi.count)" +
+                                " from Order o" +
+                                " join o.member m" +
+                                " join o.delivery d" +
+                                " join o.orderItems oi" +
+                                " join oi.item i" +
+                                " order by o.id", OrderFlatDto.class)
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
 }
@@ -12,12 +12,13 @@ public class OrderSimpleQueryRepository {
 
     private final EntityManager em;
 
+    /**
+     * 주문 요약(order_summary) 에서 바로 조회 - orders, member, delivery 조인이 필요 없다.
+     */
     public List<OrderSimpleQueryDto> findOrderDtos() {
         return em.createQuery(
-                        "select new jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
-                                " from Order o" +
-                                " join o.member m" +
-                                " join o.delivery d", OrderSimpleQueryDto.class)
+                        "select new jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto(s.orderId, s.memberName, s.orderDate, s.status, s.address, s.totalPrice)" +
+                                " from OrderSummary s", OrderSimpleQueryDto.class)
                 .getResultList();
     }
 }
\ No newline at end of file
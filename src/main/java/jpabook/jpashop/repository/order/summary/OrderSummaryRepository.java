@@ -0,0 +1,81 @@
+package jpabook.jpashop.repository.order.summary;
+
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.OrderSummary;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.OrderSearchQueries;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class OrderSummaryRepository {
+
+    private final EntityManager em;
+    private final OrderSearchQueries orderSearchQueries;
+
+    public void save(OrderSummary orderSummary) {
+        em.persist(orderSummary);
+    }
+
+    public OrderSummary findOne(Long orderId) {
+        return em.find(OrderSummary.class, orderId);
+    }
+
+    /**
+     * 주문 목록 - 조인 없이 order_summary 한 테이블만 조회
+     * 최신 주문 순, (status, order_date) / (order_date, order_id) 인덱스 사용
+     */
+    public List<OrderSummary> findAll(OrderStatus status, int offset, int limit) {
+        String jpql = "select s from OrderSummary s";
+        if (status != null) {
+            jpql += " where s.status = :status";
+        }
+        jpql += " order by s.orderDate desc, s.orderId desc";
+
+        TypedQuery<OrderSummary> query = em.createQuery(jpql, OrderSummary.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit);
+
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+
+        return query.getResultList();
+    }
+
+    /**
+     * 주문 요약 검색 - 주문 검색(OrderRepository.findAll)과 같은 조건, 정렬, 페이징을 조인 없이 order_summary 에서 조회
+     */
+    public List<OrderSummary> findAll(OrderSearch orderSearch) {
+        if (orderSearch.hasMemberIds() && orderSearch.getMemberIds().isEmpty()) return Collections.emptyList();
+
+        return orderSearchQueries.createSummaryQuery(em, orderSearch).getResultList();
+    }
+
+    /**
+     * 주문 상태 일괄 취소 (벌크 연산)
+     */
+    public int cancelAll(Collection<Long> orderIds) {
+        return em.createQuery("update OrderSummary s set s.status = :status where s.orderId in :orderIds")
+                .setParameter("status", OrderStatus.CANCEL)
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+    }
+
+    /**
+     * 회원 이름 변경 반영 (벌크 연산)
+     */
+    public int updateMemberName(Long memberId, String memberName) {
+        return em.createQuery("update OrderSummary s set s.memberName = :memberName where s.memberId = :memberId")
+                .setParameter("memberName", memberName)
+                .setParameter("memberId", memberId)
+                .executeUpdate();
+    }
+}
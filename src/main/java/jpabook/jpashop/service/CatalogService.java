@@ -0,0 +1,141 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.ItemView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Comparator.comparing;
+
+/**
+ * 상품 목록 스냅샷
+ * - 상품 목록/주문 화면마다 모든 Item 엔티티를 조회하지 않고, 미리 만들어 둔 스냅샷을 락, DB 조회 없이 읽는다.
+ * - 상품이 바뀐 트랜잭션이 커밋되면 별도 스레드에서 스냅샷을 다시 만들어 교체한다.
+ * - 주문으로 재고가 바뀔 때는 전체를 다시 읽지 않고 바뀐 상품만 조회해서 기존 스냅샷에 반영한다.
+ *   요청이 몰려도 REBUILD_DELAY_MILLIS 동안 바뀐 상품 id 는 모아서 IN 조회 1번으로 합쳐진다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogService {
+
+    private final ItemRepository itemRepository;
+
+    private static final long REBUILD_DELAY_MILLIS = 500;
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong versionSequence = new AtomicLong();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final AtomicBoolean fullRebuildPending = new AtomicBoolean();
+    private final Set<Long> pendingItemIds = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService rebuildExecutor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("catalog-"));
+
+    /**
+     * 현재 스냅샷 조회
+     * 아직 한번도 만들어지지 않았으면 호출한 스레드에서 바로 만든다.
+     */
+    public CatalogSnapshot getSnapshot() {
+        CatalogSnapshot current = snapshot.get();
+        return current != null ? current : rebuild();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        fullRebuildPending.set(true);
+        requestRebuild();
+    }
+
+    @TransactionalEventListener
+    public void onItemChanged(ItemChangedEvent event) {
+        if (event.isAll()) {
+            fullRebuildPending.set(true);
+        } else {
+            pendingItemIds.addAll(event.getItemIds());
+        }
+        requestRebuild();
+    }
+
+    private void requestRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuildExecutor.schedule(() -> {
+                rebuildPending.set(false);
+                try {
+                    Set<Long> itemIds = drainPendingItemIds();
+                    if (fullRebuildPending.getAndSet(false)) {
+                        rebuild();
+                    } else if (!itemIds.isEmpty()) {
+                        patch(itemIds);
+                    }
+                } catch (RuntimeException e) {
+                    log.error("catalog snapshot rebuild failed", e);
+                }
+            }, REBUILD_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private CatalogSnapshot rebuild() {
+        long version = versionSequence.incrementAndGet();
+        List<ItemView> items = itemRepository.findAllViews();
+        CatalogSnapshot built = new CatalogSnapshot(version, items);
+
+        //늦게 시작한 빌드가 먼저 끝난 경우, 더 오래된 스냅샷으로 덮어쓰지 않는다.
+        return snapshot.accumulateAndGet(built, (current, next) ->
+                current == null || next.getVersion() > current.getVersion() ? next : current);
+    }
+
+    /**
+     * 바뀐 상품만 다시 조회해서 기존 스냅샷의 같은 상품을 교체한 새 스냅샷을 만든다.
+     * 조회되지 않은 상품(삭제)은 빠지고, 새 상품은 추가된다.
+     */
+    private CatalogSnapshot patch(Set<Long> itemIds) {
+        CatalogSnapshot current = snapshot.get();
+        if (current == null) return rebuild();
+
+        long version = versionSequence.incrementAndGet();
+        List<ItemView> changed = itemRepository.findViews(itemIds);
+
+        List<ItemView> items = new ArrayList<>(current.getItems().size() + changed.size());
+        for (ItemView item : current.getItems()) {
+            if (!itemIds.contains(item.getId())) items.add(item);
+        }
+        items.addAll(changed);
+        items.sort(comparing(ItemView::getId));
+
+        CatalogSnapshot built = new CatalogSnapshot(version, items);
+        return snapshot.accumulateAndGet(built, (prev, next) ->
+                prev == null || next.getVersion() > prev.getVersion() ? next : prev);
+    }
+
+    private Set<Long> drainPendingItemIds() {
+        Set<Long> itemIds = new HashSet<>();
+        for (Iterator<Long> it = pendingItemIds.iterator(); it.hasNext(); ) {
+            itemIds.add(it.next());
+            it.remove();
+        }
+        return itemIds;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        rebuildExecutor.shutdown();
+    }
+}
@@ -0,0 +1,23 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.ItemView;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 상품 목록 스냅샷 (변경 불가)
+ * 상품이 바뀌면 새 스냅샷을 만들어 통째로 교체한다.(copy-on-write)
+ */
+@Getter
+public class CatalogSnapshot {
+
+    private final long version;
+    private final List<ItemView> items;
+
+    public CatalogSnapshot(long version, List<ItemView> items) {
+        this.version = version;
+        this.items = Collections.unmodifiableList(items);
+    }
+}
@@ -0,0 +1,7 @@
+package jpabook.jpashop.service;
+
+/**
+ * 카테고리 추가/변경 이벤트 - 커밋 후 캐시된 카테고리 트리를 버린다.
+ */
+public class CategoryChangedEvent {
+}
@@ -0,0 +1,31 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 카테고리 트리 노드 (엔티티 X, 캐시용)
+ */
+@Getter
+public class CategoryNode {
+
+    private final Long id;
+    private final String name;
+    private final List<CategoryNode> children = new ArrayList<>();
+
+    public CategoryNode(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public List<CategoryNode> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    void addChild(CategoryNode child) {
+        children.add(child);
+    }
+}
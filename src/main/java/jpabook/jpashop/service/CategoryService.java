@@ -0,0 +1,108 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.Item;
+import jpabook.jpashop.repository.CategoryRepository;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.ItemView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class CategoryService {
+
+    private final CategoryRepository categoryRepository;
+    private final ItemRepository itemRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    //카테고리 트리 캐시 - 화면 이동(네비게이션)마다 트리를 조회하지 않는다. 카테고리가 바뀌면 커밋 후 버린다.
+    private final AtomicReference<List<CategoryNode>> tree = new AtomicReference<>();
+    private final AtomicLong treeVersion = new AtomicLong();
+
+    /**
+     * 카테고리 추가
+     */
+    @Transactional
+    public Long create(String name, Long parentId) {
+        Category category = Category.createCategory(name);
+        if (parentId != null) {
+            Category parent = categoryRepository.findOne(parentId);
+            if (parent == null) throw new IllegalArgumentException("존재하지 않는 상위 카테고리입니다. parentId = " + parentId);
+            parent.addChildCategory(category);
+        }
+        categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent());
+
+        return category.getId();
+    }
+
+    @Transactional
+    public void addItem(Long categoryId, Long itemId) {
+        Category category = categoryRepository.findOne(categoryId);
+        if (category == null) throw new IllegalArgumentException("존재하지 않는 카테고리입니다. categoryId = " + categoryId);
+        Item item = itemRepository.findOne(itemId);
+        if (item == null) throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId = " + itemId);
+        category.addItem(item);
+    }
+
+    /**
+     * 하위 카테고리까지 포함한 상품 목록
+     */
+    public List<ItemView> findItems(Long categoryId, int offset, int limit) {
+        return categoryRepository.findItemViewsInSubtree(categoryId, offset, limit);
+    }
+
+    /**
+     * 카테고리 트리 (최상위 카테고리 목록)
+     */
+    public List<CategoryNode> getTree() {
+        List<CategoryNode> current = tree.get();
+        if (current != null) return current;
+
+        //만드는 동안 카테고리가 바뀌었으면 오래된 트리이므로 캐시하지 않는다.
+        long version = treeVersion.get();
+        List<CategoryNode> built = buildTree();
+        if (treeVersion.get() == version) tree.compareAndSet(null, built);
+        return built;
+    }
+
+    @TransactionalEventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        treeVersion.incrementAndGet();
+        tree.set(null);
+    }
+
+    private List<CategoryNode> buildTree() {
+        List<Object[]> rows = categoryRepository.findAllTreeRows();
+
+        Map<Long, CategoryNode> nodes = new HashMap<>();
+        for (Object[] row : rows) {
+            nodes.put((Long) row[0], new CategoryNode((Long) row[0], (String) row[1]));
+        }
+
+        List<CategoryNode> roots = new ArrayList<>();
+        for (Object[] row : rows) {
+            CategoryNode node = nodes.get((Long) row[0]);
+            Long parentId = (Long) row[2];
+            if (parentId == null) {
+                roots.add(node);
+            } else {
+                nodes.get(parentId).addChild(node);
+            }
+        }
+        return Collections.unmodifiableList(roots);
+    }
+}
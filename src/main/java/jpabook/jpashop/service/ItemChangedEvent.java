@@ -0,0 +1,29 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 상품(재고 포함) 변경 이벤트 - 커밋 후 상품 목록 스냅샷에 바뀐 상품을 반영한다.
+ */
+@Getter
+public class ItemChangedEvent {
+
+    private final Set<Long> itemIds; //바뀐 상품 id, 비어 있으면 전체
+
+    public ItemChangedEvent(Long itemId) {
+        this.itemIds = itemId == null ? Collections.emptySet() : Collections.singleton(itemId);
+    }
+
+    public ItemChangedEvent(Collection<Long> itemIds) {
+        this.itemIds = Collections.unmodifiableSet(new HashSet<>(itemIds));
+    }
+
+    public boolean isAll() {
+        return itemIds.isEmpty();
+    }
+}
@@ -3,6 +3,7 @@ package jpabook.jpashop.service;
 import jpabook.jpashop.domain.Item;
 import jpabook.jpashop.repository.ItemRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,18 +15,44 @@ import java.util.List;
 public class ItemService {
 
     private final ItemRepository itemRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public void saveItem(Item item) {
         itemRepository.save(item);
+        eventPublisher.publishEvent(new ItemChangedEvent(item.getId()));
     }
 
     @Transactional
     public void updateItem(Long itemId, String name, int price, int stockQuantity) {
         Item item = itemRepository.findOne(itemId);
+        //재고 분할 중 주문의 차감과 섞이지 않도록 재고 row 를 먼저 잠근다.
+        itemRepository.lockStock(item);
         item.setName(name);
         item.setPrice(price);
-        item.setStockQuantity(stockQuantity);
+
+        if (item.isStockSharded()) {
+            itemRepository.shardStock(item, item.getStockShardCount(), stockQuantity);
+        } else {
+            itemRepository.updateStock(itemId, stockQuantity);
+        }
+
+        eventPublisher.publishEvent(new ItemChangedEvent(itemId));
+    }
+
+    /**
+     * 재고 분할 설정
+     * 현재 재고를 shardCount 개로 나눈다. 0 이면 분할 해제
+     * 재고를 읽기 전에 상품/분할 재고 row 를 잠가서, 읽은 뒤 나누기 전까지 들어온 주문의 차감을 잃어버리지 않는다.
+     */
+    @Transactional
+    public void shardStock(Long itemId, int shardCount) {
+        if (shardCount < 0) throw new IllegalArgumentException("분할 수는 0 이상이어야 합니다.");
+
+        Item item = itemRepository.findOne(itemId);
+        int totalQuantity = itemRepository.lockStock(item);
+        itemRepository.shardStock(item, shardCount, totalQuantity);
+        eventPublisher.publishEvent(new ItemChangedEvent(itemId));
     }
 
     public List<Item> findItems() {
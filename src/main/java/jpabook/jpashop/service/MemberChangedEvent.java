@@ -0,0 +1,24 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 회원 가입, 이름 변경 이벤트 - 커밋 후 회원 이름 인덱스에 반영한다.
+ * 일괄 가입은 회원마다 이벤트를 만들지 않고 가입한 회원 전체를 이벤트 하나에 담는다.
+ */
+@Getter
+public class MemberChangedEvent {
+
+    private final Map<Long, String> names; //회원 id -> 이름
+
+    public MemberChangedEvent(Long memberId, String name) {
+        this(Collections.singletonMap(memberId, name));
+    }
+
+    public MemberChangedEvent(Map<Long, String> names) {
+        this.names = Collections.unmodifiableMap(names);
+    }
+}
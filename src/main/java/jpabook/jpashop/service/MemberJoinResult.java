@@ -0,0 +1,27 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+/**
+ * 회원 일괄 가입 결과 (요청 행 단위)
+ */
+@Getter
+public class MemberJoinResult {
+
+    public enum Status {
+        JOINED, //가입 완료
+        DUPLICATE, //이미 존재하는 이름
+        DUPLICATE_IN_REQUEST, //같은 요청 안에서 앞 행과 이름이 같음
+        INVALID //이름 없음
+    }
+
+    private final String name;
+    private final Long memberId;
+    private final Status status;
+
+    public MemberJoinResult(String name, Long memberId, Status status) {
+        this.name = name;
+        this.memberId = memberId;
+        this.status = status;
+    }
+}
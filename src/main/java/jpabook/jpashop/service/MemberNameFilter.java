@@ -0,0 +1,115 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.MemberRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 회원 이름 블룸 필터 (메모리)
+ * - 가입할 때마다 이름 중복 조회(findByName)를 하지 않도록, 이미 있는 이름을 비트 배열에 기록해 둔다.
+ * - mightContain 이 false 면 그 이름은 확실히 없으므로 조회를 생략한다. true 면 (오탐일 수 있으니) DB 를 조회한다.
+ * - 이름 변경 전 이름은 지울 수 없어 남지만, 오탐이 조금 늘어날 뿐 결과는 틀리지 않는다.
+ * - 다른 서버에서 가입한 이름은 모르므로 최종 중복 방지는 member.name 유니크 제약이 한다.
+ */
+@Slf4j
+@Component
+public class MemberNameFilter {
+
+    private static final int LOAD_BATCH_SIZE = 10000;
+
+    private final MemberRepository memberRepository;
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashCount;
+    private volatile boolean ready;
+
+    public MemberNameFilter(MemberRepository memberRepository,
+                            @Value("${jpashop.member-name-filter.expected-insertions:1000000}") long expectedInsertions,
+                            @Value("${jpashop.member-name-filter.fpp:0.01}") double fpp) {
+        this.memberRepository = memberRepository;
+        //m = -n ln(p) / (ln2)^2, k = m/n ln2
+        long size = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) ((size + 63) / 64));
+        this.bitSize = bits.length() * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        Long lastId = 0L;
+        long count = 0;
+        List<Object[]> rows;
+        do {
+            rows = memberRepository.findIdAndNames(lastId, LOAD_BATCH_SIZE);
+            for (Object[] row : rows) {
+                put((String) row[1]);
+                lastId = (Long) row[0];
+            }
+            count += rows.size();
+        } while (rows.size() == LOAD_BATCH_SIZE);
+
+        ready = true;
+        log.info("member name filter loaded. names = {}, bits = {}, hashes = {}", count, bitSize, hashCount);
+    }
+
+    public void putAll(Collection<String> names) {
+        for (String name : names) {
+            put(name);
+        }
+    }
+
+    public void put(String name) {
+        if (name == null) return;
+
+        long hash = hash(name);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = Integer.toUnsignedLong(h1 + i * h2) % bitSize;
+            setBit(index);
+        }
+    }
+
+    /**
+     * @return false 면 확실히 없는 이름, true 면 있을 수도 있는 이름 (적재 전에는 항상 true)
+     */
+    public boolean mightContain(String name) {
+        if (!ready || name == null) return true;
+
+        long hash = hash(name);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = Integer.toUnsignedLong(h1 + i * h2) % bitSize;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) return false;
+        }
+        return true;
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) return;
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+
+    //FNV-1a 64bit
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,114 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.MemberRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 회원 이름 n-gram(trigram) 인덱스 (메모리)
+ * - `m.name like '%이름%'` 은 앞에 % 가 붙어서 DB 인덱스를 탈 수 없고, 매번 회원 테이블 전체를 읽는다.
+ * - 이름을 3글자 단위 조각으로 나누어 조각 -> 회원 id 목록을 만들어 두고, 검색어 조각 중 가장 희귀한 조각의 회원만 확인한다.
+ * - 애플리케이션 시작시 전체를 적재하고, 가입/이름 변경은 커밋 후 반영한다.
+ * - 서버마다 따로 가지는 인덱스이므로, 다른 서버에서 바뀐 이름은 재시작 전까지 반영되지 않는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberNameIndex {
+
+    private static final int GRAM_SIZE = 3;
+    private static final int LOAD_BATCH_SIZE = 10000;
+    private static final int MAX_CANDIDATES = 1000; //후보가 이보다 많으면 인덱스 대신 LIKE 검색
+
+    private final MemberRepository memberRepository;
+
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        Long lastId = 0L;
+        List<Object[]> rows;
+        do {
+            rows = memberRepository.findIdAndNames(lastId, LOAD_BATCH_SIZE);
+            for (Object[] row : rows) {
+                put((Long) row[0], (String) row[1]);
+                lastId = (Long) row[0];
+            }
+        } while (rows.size() == LOAD_BATCH_SIZE);
+
+        ready = true;
+        log.info("member name index loaded. members = {}, grams = {}", names.size(), postings.size());
+    }
+
+    @TransactionalEventListener
+    public void onMemberChanged(MemberChangedEvent event) {
+        putAll(event.getNames());
+    }
+
+    public void putAll(Map<Long, String> names) {
+        names.forEach(this::put);
+    }
+
+    public void put(Long memberId, String name) {
+        String oldName = name == null ? names.remove(memberId) : names.put(memberId, name);
+        if (oldName != null) {
+            for (String gram : grams(oldName)) {
+                Set<Long> ids = postings.get(gram);
+                if (ids != null) ids.remove(memberId);
+            }
+        }
+        if (name != null) {
+            for (String gram : grams(name)) {
+                postings.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(memberId);
+            }
+        }
+    }
+
+    /**
+     * 이름에 keyword 가 포함된 회원 id 조회
+     *
+     * @return 인덱스를 쓸 수 없으면 empty (검색어가 3글자 미만, 적재 전, 후보가 너무 많음) -> LIKE 검색을 사용한다.
+     */
+    public Optional<Set<Long>> findIdsByNameContaining(String keyword) {
+        if (!ready || keyword == null || keyword.length() < GRAM_SIZE) return Optional.empty();
+
+        //가장 적은 회원을 가진 조각의 회원만 실제 이름으로 확인한다.
+        Set<Long> rarest = null;
+        for (String gram : grams(keyword)) {
+            Set<Long> ids = postings.getOrDefault(gram, Collections.emptySet());
+            if (rarest == null || ids.size() < rarest.size()) rarest = ids;
+        }
+
+        Set<Long> result = new HashSet<>();
+        for (Long memberId : rarest) {
+            String name = names.get(memberId);
+            if (name != null && name.contains(keyword)) {
+                result.add(memberId);
+                if (result.size() > MAX_CANDIDATES) return Optional.empty();
+            }
+        }
+        return Optional.of(result);
+    }
+
+    private Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+}
@@ -2,11 +2,23 @@ package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.order.summary.OrderSummaryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 @Transactional(readOnly = true) //MemberService 에서는 readOly 옵션이 더 많아서 기본을 true로 주고, join 메서드는 Transactional 을 추가해 주었다.
@@ -14,23 +26,94 @@ import java.util.List;
 public class MemberService {
 
     private final MemberRepository memberRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MemberNameFilter memberNameFilter;
+
+    @Value("${jpashop.member-join.chunk-size:1000}")
+    private int joinChunkSize;
 
     //회원가입
     @Transactional
     public Long join(Member member) {
-        validateDuplicateMember(member);
+        validateDuplicateMember(member.getName());
         memberRepository.save(member);
+        flushUniqueName();
+        memberNameFilter.put(member.getName());
+        eventPublisher.publishEvent(new MemberChangedEvent(member.getId(), member.getName()));
 
         return member.getId();
     }
 
-    //중복회원 체크
-    private void validateDuplicateMember(Member member) {
-        List<Member> findMembers = memberRepository.findByName(member.getName());
+    /**
+     * 회원 일괄 가입
+     * - chunk 단위로 이름 중복을 IN 쿼리 한번으로 확인하고, insert 는 JDBC 배치(hibernate.jdbc.batch_size)로 보낸다.
+     * - chunk 마다 flush/clear 해서 영속성 컨텍스트가 커지지 않게 한다.
+     * - 중복된 행은 건너뛰고 행마다 결과를 돌려준다. 동시에 다른 곳에서 같은 이름이 가입되면 유니크 제약 위반으로 전체가 롤백된다.
+     */
+    @Transactional
+    public List<MemberJoinResult> joinAll(List<Member> members) {
+        List<MemberJoinResult> results = new ArrayList<>(members.size());
+        Set<String> requestNames = new HashSet<>();
+        Map<Long, String> joinedNames = new LinkedHashMap<>();
+
+        for (int from = 0; from < members.size(); from += joinChunkSize) {
+            List<Member> chunk = members.subList(from, Math.min(from + joinChunkSize, members.size()));
+
+            Set<String> names = new HashSet<>();
+            for (Member member : chunk) {
+                if (StringUtils.hasText(member.getName())) names.add(member.getName());
+            }
+            Set<String> existingNames = names.isEmpty()
+                    ? Collections.emptySet()
+                    : new HashSet<>(memberRepository.findNamesIn(names));
+
+            List<String> chunkNames = new ArrayList<>(chunk.size());
+            for (Member member : chunk) {
+                String name = member.getName();
+                if (!StringUtils.hasText(name)) {
+                    results.add(new MemberJoinResult(name, null, MemberJoinResult.Status.INVALID));
+                } else if (existingNames.contains(name)) {
+                    results.add(new MemberJoinResult(name, null, MemberJoinResult.Status.DUPLICATE));
+                } else if (!requestNames.add(name)) {
+                    results.add(new MemberJoinResult(name, null, MemberJoinResult.Status.DUPLICATE_IN_REQUEST));
+                } else {
+                    memberRepository.save(member);
+                    chunkNames.add(name);
+                    joinedNames.put(member.getId(), name);
+                    results.add(new MemberJoinResult(name, member.getId(), MemberJoinResult.Status.JOINED));
+                }
+            }
+
+            flushUniqueName();
+            memberRepository.clear();
+            memberNameFilter.putAll(chunkNames);
+        }
+
+        //이름 인덱스는 회원마다가 아니라 가입한 회원 전체를 이벤트 하나로 반영한다.
+        if (!joinedNames.isEmpty()) eventPublisher.publishEvent(new MemberChangedEvent(joinedNames));
+
+        return results;
+    }
+
+    //중복회원 체크 - 블룸 필터에 없는 이름은 처음 보는 이름이므로 조회하지 않는다.
+    private void validateDuplicateMember(String name) {
+        if (!memberNameFilter.mightContain(name)) return;
+
+        List<Member> findMembers = memberRepository.findByName(name);
 
         if (!findMembers.isEmpty()) throw new IllegalStateException("이미 존재하는 회원입니다.");
     }
 
+    //동시에 같은 이름으로 가입하면 위 체크를 둘 다 통과할 수 있다. 유니크 제약 위반을 바로 확인해서 같은 예외로 바꾼다.
+    private void flushUniqueName() {
+        try {
+            memberRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+        }
+    }
+
     //전체 회원 조회
     public List<Member> findMembers() {
         return memberRepository.findAll();
@@ -44,6 +127,11 @@ public class MemberService {
     @Transactional
     public void update(Long id, String name) {
         Member member = memberRepository.findOne(id);
+        if (!Objects.equals(member.getName(), name)) validateDuplicateMember(name);
         member.setName(name);
+        flushUniqueName();
+        memberNameFilter.put(name);
+        orderSummaryRepository.updateMemberName(id, name);
+        eventPublisher.publishEvent(new MemberChangedEvent(id, name));
     }
 }
@@ -0,0 +1,82 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.repository.order.query.OrderFlatAssembler;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 주문 내보내기
+ * - V6 플랫 조인 결과를 스트리밍으로 읽으면서 바로 응답에 쓴다.
+ * - 전체 결과를 메모리에 올리지 않으므로 테이블 크기와 상관없이 메모리 사용량이 일정하다.
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class OrderExportService {
+
+    private static final int FETCH_SIZE = 500;
+
+    private final OrderQueryRepository orderQueryRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * NDJSON - 한 줄에 주문 1건
+     * 같은 주문의 row 는 연속으로 오므로 OrderFlatAssembler 로 한 건씩 완성하면서 내보낸다.
+     */
+    public void exportNdjson(Writer writer) throws IOException {
+        try (Stream<OrderFlatDto> flats = orderQueryRepository.streamAllByDto_flat(FETCH_SIZE)) {
+            for (Iterator<OrderQueryDto> it = new OrderFlatAssembler(flats.iterator()); it.hasNext(); ) {
+                writer.write(objectMapper.writeValueAsString(it.next()));
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * CSV - 한 줄에 주문상품 1건 (플랫 row 그대로)
+     */
+    public void exportCsv(Writer writer) throws IOException {
+        writer.write("orderId,name,orderDate,orderStatus,totalPrice,city,street,zipcode,itemName,orderPrice,count\n");
+
+        try (Stream<OrderFlatDto> flats = orderQueryRepository.streamAllByDto_flat(FETCH_SIZE)) {
+            for (Iterator<OrderFlatDto> it = flats.iterator(); it.hasNext(); ) {
+                OrderFlatDto flat = it.next();
+                Address address = flat.getAddress();
+
+                writer.write(String.join(",",
+                        String.valueOf(flat.getOrderId()),
+                        csv(flat.getName()),
+                        String.valueOf(flat.getOrderDate()),
+                        String.valueOf(flat.getOrderStatus()),
+                        String.valueOf(flat.getTotalPrice()),
+                        csv(address == null ? null : address.getCity()),
+                        csv(address == null ? null : address.getStreet()),
+                        csv(address == null ? null : address.getZipcode()),
+                        csv(flat.getItemName()),
+                        String.valueOf(flat.getOrderPrice()),
+                        String.valueOf(flat.getCount())));
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+
+    private String csv(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
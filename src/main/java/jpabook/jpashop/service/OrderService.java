@@ -1,15 +1,28 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.*;
+import jpabook.jpashop.jfr.OrderPlacementEvent;
+import jpabook.jpashop.jfr.OrderStageEvent;
 import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.MemberRepository;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.summary.OrderSummaryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 
 @Service
 @Transactional(readOnly = true)
@@ -19,29 +32,115 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final MemberRepository memberRepository;
     private final ItemRepository itemRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final MemberNameIndex memberNameIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 주문
      */
     @Transactional
     public Long order(Long memberId, Long itemId, int count) {
+        //JFR 이벤트 - 주문 전체 / 단계별 시간 (jpashop.OrderPlacement, jpashop.OrderStage)
+        OrderPlacementEvent placement = OrderPlacementEvent.start(memberId, itemId, count);
 
         //엔티티 조회
+        OrderStageEvent stage = OrderStageEvent.start(OrderStageEvent.MEMBER_LOAD, memberId, itemId);
         Member member = memberRepository.findOne(memberId);
+        stage.commit();
+
+        stage = OrderStageEvent.start(OrderStageEvent.ITEM_LOAD, memberId, itemId);
         Item item = itemRepository.findOne(itemId);
+        stage.commit();
+
+        //재고 차감(조건부 update 로 원자적으로 처리)
+        stage = OrderStageEvent.start(OrderStageEvent.STOCK_CHECK, memberId, itemId);
+        itemRepository.removeStock(item, count);
+        eventPublisher.publishEvent(new ItemChangedEvent(itemId));
+        stage.commit();
+
+        stage = OrderStageEvent.start(OrderStageEvent.PERSIST, memberId, itemId);
 
         //배송조회 생성
         Delivery delivery = new Delivery();
         delivery.setAddress(member.getAddress());
 
         //주문상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+        OrderItem orderItem = OrderItem.createReservedOrderItem(item, item.getPrice(), count);
 
         //주문 생성
         Order order = Order.createOrder(member, delivery, orderItem);
 
         //주문 저장
         orderRepository.save(order);
+        orderSummaryRepository.save(OrderSummary.createOrderSummary(order));
+
+        stage.orderId = order.getId();
+        stage.commit();
+        OrderStageEvent.recordFlushCommit(memberId, itemId, order.getId(), placement);
+
+        return order.getId();
+    }
+
+    /**
+     * 여러 상품 주문 - 주문 1건, 배송 1건, 트랜잭션 1번
+     * - 상품은 IN 쿼리 한번으로 조회한다.
+     * - 재고는 상품 id 오름차순으로 차감한다.
+     *   동시에 들어온 장바구니 주문들이 항상 같은 순서로 row 락을 잡으므로 서로 교착상태(deadlock)에 빠지지 않는다.
+     *
+     * @param itemCounts 상품 id -> 주문 수량
+     */
+    @Transactional
+    public Long order(Long memberId, Map<Long, Integer> itemCounts) {
+        if (itemCounts.isEmpty()) throw new IllegalArgumentException("주문 상품이 없습니다.");
+
+        //JFR 이벤트 - 상품 id 는 0 으로 기록한다.
+        int totalCount = itemCounts.values().stream().mapToInt(Integer::intValue).sum();
+        OrderPlacementEvent placement = OrderPlacementEvent.start(memberId, 0L, totalCount);
+
+        //엔티티 조회
+        OrderStageEvent stage = OrderStageEvent.start(OrderStageEvent.MEMBER_LOAD, memberId, 0L);
+        Member member = memberRepository.findOne(memberId);
+        stage.commit();
+
+        stage = OrderStageEvent.start(OrderStageEvent.ITEM_LOAD, memberId, 0L);
+        SortedMap<Long, Integer> sortedCounts = new TreeMap<>(itemCounts);
+        Map<Long, Item> items = itemRepository.findAll(sortedCounts.keySet()).stream()
+                .collect(toMap(Item::getId, identity()));
+        stage.commit();
+
+        //재고 차감(상품 id 오름차순) 및 주문상품 생성
+        stage = OrderStageEvent.start(OrderStageEvent.STOCK_CHECK, memberId, 0L);
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : sortedCounts.entrySet()) {
+            Item item = items.get(entry.getKey());
+            int count = entry.getValue();
+
+            if (item == null) throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId = " + entry.getKey());
+            if (count <= 0) throw new IllegalArgumentException("주문 수량은 1 이상이어야 합니다. itemId = " + entry.getKey());
+
+            itemRepository.removeStock(item, count);
+            orderItems.add(OrderItem.createReservedOrderItem(item, item.getPrice(), count));
+        }
+        eventPublisher.publishEvent(new ItemChangedEvent(sortedCounts.keySet()));
+        stage.commit();
+
+        stage = OrderStageEvent.start(OrderStageEvent.PERSIST, memberId, 0L);
+
+        //배송조회 생성
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+
+        //주문 생성
+        Order order = Order.createOrder(member, delivery, orderItems.toArray(new OrderItem[0]));
+
+        //주문 저장
+        orderRepository.save(order);
+        orderSummaryRepository.save(OrderSummary.createOrderSummary(order));
+
+        stage.orderId = order.getId();
+        stage.commit();
+        OrderStageEvent.recordFlushCommit(memberId, 0L, order.getId(), placement);
 
         return order.getId();
     }
@@ -54,13 +153,78 @@ public class OrderService {
         //주문 엔티티 조회
         Order order = orderRepository.findOne(orderId);
         order.cancel();
+
+        OrderSummary summary = orderSummaryRepository.findOne(orderId);
+        if (summary == null) {
+            //주문 요약을 쓰기 전에 만들어진 주문은 요약이 없으므로, 취소된 상태로 이때 만들어 둔다.
+            orderSummaryRepository.save(OrderSummary.createOrderSummary(order));
+        } else {
+            summary.cancel();
+        }
+
+        //재고는 update 쿼리로 복구한다. 상품 id 오름차순으로 실행해서 동시 주문과 교착상태를 피한다.
+        SortedMap<Long, Integer> restoreQuantities = new TreeMap<>();
+        for (OrderItem orderItem : order.getOrderItems()) {
+            restoreQuantities.merge(orderItem.getItem().getId(), orderItem.getCount(), Integer::sum);
+        }
+        restoreQuantities.forEach(itemRepository::addStock);
+        eventPublisher.publishEvent(new ItemChangedEvent(restoreQuantities.keySet()));
+    }
+
+    /**
+     * 주문 일괄 취소
+     * - 주문마다 조회 -> 주문상품 -> 상품을 지연로딩하며 재고를 하나씩 복구하면 수천번의 쿼리가 나간다.
+     * - 상태는 update 한번으로 바꾸고, 복구할 재고는 상품별로 합산해서 상품당 update 한번씩만 실행한다.
+     * - 배송완료(COMP)된 주문이 하나라도 있으면 전체를 취소하지 않는다.
+     * - 이미 취소된 주문은 건너뛴다.
+     *
+     * @return 취소된 주문 수
+     */
+    @Transactional
+    public int cancelOrders(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) return 0;
+
+        List<Order> orders = orderRepository.findAllWithDeliveryForUpdate(orderIds);
+
+        for (Order order : orders) {
+            if (order.getDelivery().getStatus() == DeliveryStatus.COMP) {
+                throw new IllegalStateException("이미 배송완료된 상품은 취소가 불가능합니다. orderId = " + order.getId());
+            }
+        }
+
+        List<Long> cancelIds = orders.stream()
+                .filter(o -> o.getStatus() == OrderStatus.ORDER)
+                .map(Order::getId)
+                .collect(toList());
+
+        if (cancelIds.isEmpty()) return 0;
+
+        SortedMap<Long, Integer> restoreQuantities = orderRepository.sumCountByItem(cancelIds);
+        int canceled = orderRepository.cancelAll(cancelIds);
+        orderSummaryRepository.cancelAll(cancelIds);
+        itemRepository.addStocks(restoreQuantities);
+        eventPublisher.publishEvent(new ItemChangedEvent(restoreQuantities.keySet()));
+
+        return canceled;
     }
 
     /**
      * 주문 검색
      */
     public List<Order> findOrders(OrderSearch orderSearch) {
+        //회원 이름은 n-gram 인덱스로 회원 id 를 먼저 좁힌다. 인덱스를 쓸 수 없으면 LIKE 검색
+        orderSearch.setMemberIds(memberNameIndex.findIdsByNameContaining(orderSearch.getMemberName()).orElse(null));
+
 //        return orderRepository.findAllByString(orderSearch);
-        return orderRepository.findAllByCriteria(orderSearch);
+        return orderRepository.findAll(orderSearch);
+    }
+
+    /**
+     * 주문 요약 검색 - 주문 목록 화면용, 조인 없이 order_summary 에서 조회
+     */
+    public List<OrderSummary> findOrderSummaries(OrderSearch orderSearch) {
+        orderSearch.setMemberIds(memberNameIndex.findIdsByNameContaining(orderSearch.getMemberName()).orElse(null));
+
+        return orderSummaryRepository.findAll(orderSearch);
     }
 }
@@ -0,0 +1,35 @@
+package jpabook.jpashop.profiler;
+
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * chunk 크기를 1 로 줄여서 V5 의 주문상품 조회가 여러 chunk 로 나뉘어 워커 스레드에서도 실행되게 한다.
+ */
+@SpringBootTest(properties = "jpashop.order-query.chunk-size=1")
+@Transactional
+class ChunkedOrderQueryProfilerTest {
+
+    @Autowired
+    OrderQueryRepository orderQueryRepository;
+
+    @Test
+    public void V5_의_chunk_병렬_조회도_요청에_센다() throws Exception {
+        //when
+        RequestProfiler.Result<List<OrderQueryDto>> result =
+                RequestProfiler.profile(() -> orderQueryRepository.findAllByDto_optimization());
+
+        //then
+        int orderCount = result.getValue().size();
+        assertTrue(orderCount > 1, "chunk 가 여러개가 되도록 주문이 2건 이상 있어야 한다.");
+        assertEquals(1 + orderCount, result.getProfile().getStatementCount(), "주문 조회 1번 + chunk(주문) 마다 1번");
+    }
+}
@@ -0,0 +1,55 @@
+package jpabook.jpashop.profiler;
+
+import java.util.Map;
+
+/**
+ * 테스트용 RequestProfile 검증
+ * 예) ProfileAssertions.assertThat(profile).statementsAtMost(2).noNPlusOne();
+ */
+public class ProfileAssertions {
+
+    private static final int N_PLUS_ONE_THRESHOLD = 2;
+
+    private final RequestProfile profile;
+
+    private ProfileAssertions(RequestProfile profile) {
+        this.profile = profile;
+    }
+
+    public static ProfileAssertions assertThat(RequestProfile profile) {
+        return new ProfileAssertions(profile);
+    }
+
+    public ProfileAssertions statementsAtMost(int max) {
+        if (profile.getStatementCount() > max) {
+            fail("SQL 실행 횟수가 " + max + " 번을 넘었습니다.");
+        }
+        return this;
+    }
+
+    public ProfileAssertions lazyLoadsAtMost(int max) {
+        if (profile.getLazyLoadCount() > max) {
+            fail("지연 로딩 횟수가 " + max + " 번을 넘었습니다.");
+        }
+        return this;
+    }
+
+    public ProfileAssertions noNPlusOne() {
+        Map<String, Integer> shapes = profile.getNPlusOneShapes(N_PLUS_ONE_THRESHOLD);
+        if (!shapes.isEmpty()) {
+            fail("같은 SQL 이 반복 실행되었습니다.(N+1) " + shapes);
+        }
+        return this;
+    }
+
+    public ProfileAssertions hasNPlusOne() {
+        if (profile.getNPlusOneShapes(N_PLUS_ONE_THRESHOLD).isEmpty()) {
+            fail("반복 실행된 SQL 이 없습니다.");
+        }
+        return this;
+    }
+
+    private void fail(String message) {
+        throw new AssertionError(message + " [" + profile + "] shapes = " + profile.getShapeCounts());
+    }
+}
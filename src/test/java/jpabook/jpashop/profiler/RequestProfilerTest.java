@@ -0,0 +1,80 @@
+package jpabook.jpashop.profiler;
+
+import jpabook.jpashop.api.OrderApiController;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class RequestProfilerTest {
+
+    @Autowired
+    OrderQueryRepository orderQueryRepository;
+    @Autowired
+    OrderApiController orderApiController;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void V4_는_주문마다_주문상품을_조회한다() throws Exception {
+        //when
+        RequestProfile profile = RequestProfiler.profile(() -> orderQueryRepository.findOrderQueryDtos()).getProfile();
+
+        //then
+        ProfileAssertions.assertThat(profile).hasNPlusOne();
+    }
+
+    @Test
+    public void V5_는_주문상품을_한번에_조회한다() throws Exception {
+        //when
+        RequestProfile profile = RequestProfiler.profile(() -> orderQueryRepository.findAllByDto_optimization()).getProfile();
+
+        //then
+        ProfileAssertions.assertThat(profile)
+                .statementsAtMost(2)
+                .noNPlusOne();
+    }
+
+    @Test
+    public void V2_는_지연로딩이_일어난다() throws Exception {
+        //given
+        em.clear();
+
+        //when
+        RequestProfile v2 = RequestProfiler.profile(() -> {
+            orderApiController.ordersV2();
+        });
+        em.clear();
+        RequestProfile v3 = RequestProfiler.profile(() -> {
+            orderApiController.ordersV3();
+        });
+
+        //then
+        assertTrue(v2.getLazyLoadCount() > 0, "엔티티를 DTO 로 변환하면서 지연 로딩이 일어나야 한다.");
+        ProfileAssertions.assertThat(v3).lazyLoadsAtMost(0);
+        assertTrue(v2.getStatementCount() > v3.getStatementCount(), "페치 조인(V3)이 더 적은 SQL 을 실행해야 한다.");
+    }
+
+    @Test
+    public void wrap_으로_넘긴_작업은_다른_스레드에서도_센다() throws Exception {
+        //when
+        RequestProfile profile = RequestProfiler.profile(() -> {
+            CompletableFuture.runAsync(RequestProfiler.wrap(() -> jdbcTemplate.queryForObject("select count(*) from orders", Long.class))).join();
+            CompletableFuture.runAsync(() -> jdbcTemplate.queryForObject("select count(*) from orders", Long.class)).join();
+        });
+
+        //then
+        assertEquals(1, profile.getStatementCount(), "wrap 으로 감싼 작업만 세야 한다.");
+    }
+}
@@ -0,0 +1,77 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.ItemView;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class CategoryServiceTest {
+
+    @Autowired
+    CategoryService categoryService;
+    @Autowired
+    EntityManager em;
+
+    @Test
+    public void 하위카테고리_상품조회() throws Exception {
+        //given
+        Long rootId = categoryService.create("도서", null);
+        Long childId = categoryService.create("IT", rootId);
+        Long grandChildId = categoryService.create("JPA", childId);
+        Long otherId = categoryService.create("음반", null);
+
+        Book book1 = createBook("JPA 책", 10000);
+        Book book2 = createBook("IT 책", 20000);
+        Book album = createBook("음반", 30000);
+
+        categoryService.addItem(grandChildId, book1.getId());
+        categoryService.addItem(childId, book2.getId());
+        categoryService.addItem(rootId, book1.getId());
+        categoryService.addItem(otherId, album.getId());
+
+        em.flush();
+        em.clear();
+
+        //when
+        List<ItemView> items = categoryService.findItems(rootId, 0, 100);
+
+        //then
+        List<Long> itemIds = items.stream().map(ItemView::getId).collect(Collectors.toList());
+        assertEquals(2, itemIds.size(), "하위 카테고리 상품이 중복 없이 모두 조회되어야 한다.");
+        assertTrue(itemIds.contains(book1.getId()));
+        assertTrue(itemIds.contains(book2.getId()));
+        assertEquals(1, categoryService.findItems(grandChildId, 0, 100).size());
+    }
+
+    @Test
+    public void 없는_상위카테고리() throws Exception {
+        //given
+        Long unknownParentId = -1L;
+
+        //when
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> categoryService.create("IT", unknownParentId));
+
+        //then
+        assertTrue(thrown.getMessage().contains("parentId = -1"), "없는 상위 카테고리 id 가 메시지에 있어야 한다.");
+    }
+
+    private Book createBook(String name, int price) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(10);
+        em.persist(book);
+        return book;
+    }
+}
@@ -10,6 +10,8 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 /*
@@ -61,4 +63,30 @@ class MemberServiceTest {
         //assertEquals("이미 존재하는 회원입니다.", thrown.getMessage());
     }
 
+    @Test
+    public void 회원_일괄가입() throws Exception {
+        //given
+        Member member = new Member();
+        member.setName("jeong");
+        memberService.join(member);
+
+        List<Member> members = Arrays.asList(newMember("kim"), newMember("jeong"), newMember("kim"), newMember(""));
+
+        //when
+        List<MemberJoinResult> results = memberService.joinAll(members);
+
+        //then
+        assertEquals(MemberJoinResult.Status.JOINED, results.get(0).getStatus());
+        assertNotNull(memberRepository.findOne(results.get(0).getMemberId()), "가입된 회원은 조회되어야 한다.");
+        assertEquals(MemberJoinResult.Status.DUPLICATE, results.get(1).getStatus(), "이미 존재하는 이름은 가입되지 않는다.");
+        assertEquals(MemberJoinResult.Status.DUPLICATE_IN_REQUEST, results.get(2).getStatus(), "요청 안에서 중복된 이름은 가입되지 않는다.");
+        assertEquals(MemberJoinResult.Status.INVALID, results.get(3).getStatus());
+    }
+
+    private Member newMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        return member;
+    }
+
 }
\ No newline at end of file
@@ -4,12 +4,18 @@ import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.exception.NotEnoughStockException;
 import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -23,6 +29,8 @@ class OrderServiceTest {
     OrderService orderService;
     @Autowired
     OrderRepository orderRepository;
+    @Autowired
+    ItemService itemService;
 
     @Test
     public void 상품주문() throws Exception {
@@ -42,7 +50,7 @@ class OrderServiceTest {
         assertEquals(OrderStatus.ORDER, getOrder.getStatus(), "상품 주문시 상태는 ORDER");
         assertEquals(1, getOrder.getOrderItems().size(), "주문한 상품 종류 수가 정확해야 한다.");
         assertEquals(10000 * orderCount, getOrder.getTotalPrice(), "주문 가격은 가격 * 수량이다.");
-        assertEquals(8, book.getStockQuantity(), "주문 수량만큼 재고가 줄어야 한다.");
+        assertEquals(8, findStockQuantity(book), "주문 수량만큼 재고가 줄어야 한다.");
     }
 
 
@@ -64,6 +72,46 @@ class OrderServiceTest {
         assertEquals(ex.getMessage(), "need more stock");
     }
 
+    @Test
+    public void 여러상품_주문() throws Exception {
+        //given
+        Member member = createMember();
+        Book book1 = createBook("JPA BOOK", 10000, 10);
+        Book book2 = createBook("SPRING BOOK", 20000, 10);
+
+        Map<Long, Integer> itemCounts = new HashMap<>();
+        itemCounts.put(book2.getId(), 3);
+        itemCounts.put(book1.getId(), 2);
+
+        //when
+        Long orderId = orderService.order(member.getId(), itemCounts);
+
+        //then
+        Order getOrder = orderRepository.findOne(orderId);
+
+        assertEquals(2, getOrder.getOrderItems().size(), "주문한 상품 종류 수가 정확해야 한다.");
+        assertEquals(10000 * 2 + 20000 * 3, getOrder.getTotalPrice(), "주문 가격은 상품별 가격 * 수량의 합이다.");
+        assertEquals(8, findStockQuantity(book1), "주문 수량만큼 재고가 줄어야 한다.");
+        assertEquals(7, findStockQuantity(book2), "주문 수량만큼 재고가 줄어야 한다.");
+    }
+
+    @Test
+    public void 분할재고_상품주문() throws Exception {
+        //given
+        Member member = createMember();
+        Book book = createBook("JPA BOOK", 10000, 10);
+        itemService.shardStock(book.getId(), 4);
+
+        int orderCount = 2;
+
+        //when
+        orderService.order(member.getId(), book.getId(), orderCount);
+
+        //then
+        assertEquals(4, book.getStockShardCount(), "재고가 분할 수 만큼 나뉘어야 한다.");
+        assertEquals(8, findStockQuantity(book), "분할 재고의 합에서 주문 수량만큼 줄어야 한다.");
+    }
+
     @Test
     public void 주문취소() throws Exception {
         //given
@@ -80,7 +128,84 @@ class OrderServiceTest {
         Order getOrder = orderRepository.findOne(orderId);
 
         assertEquals(OrderStatus.CANCEL, getOrder.getStatus(), "주문 취소시 상태는 CANCEL 이다.");
-        assertEquals(10, item.getStockQuantity(), "주문 취소된 상품은 그만큼 재고가 증가해야 한다.");
+        assertEquals(10, findStockQuantity(item), "주문 취소된 상품은 그만큼 재고가 증가해야 한다.");
+    }
+
+    //재고는 update 쿼리로만 바뀌므로, 영속성 컨텍스트를 비우고 DB 에서 다시 읽는다.
+    private int findStockQuantity(Item item) {
+        em.flush();
+        em.clear();
+        return em.find(Item.class, item.getId()).getStockQuantity();
+    }
+
+    @Test
+    public void 주문_일괄취소() throws Exception {
+        //given
+        Member member = createMember();
+        Book item = createBook("테스트book", 10000, 10);
+
+        Long orderId1 = orderService.order(member.getId(), item.getId(), 2);
+        Long orderId2 = orderService.order(member.getId(), item.getId(), 3);
+
+        //when
+        int cancelCount = orderService.cancelOrders(Arrays.asList(orderId1, orderId2));
+
+        //then
+        assertEquals(2, cancelCount, "취소된 주문 수가 정확해야 한다.");
+        assertEquals(OrderStatus.CANCEL, orderRepository.findOne(orderId1).getStatus(), "주문 취소시 상태는 CANCEL 이다.");
+        assertEquals(OrderStatus.CANCEL, orderRepository.findOne(orderId2).getStatus(), "주문 취소시 상태는 CANCEL 이다.");
+        assertEquals(10, findStockQuantity(item), "주문 취소된 상품은 그만큼 재고가 증가해야 한다.");
+    }
+
+    @Test
+    public void 주문_요약_검색() throws Exception {
+        //given
+        Member member = createMember();
+        Book item = createBook("테스트book", 12345, 10);
+
+        Long canceledOrderId = orderService.order(member.getId(), item.getId(), 1);
+        orderService.order(member.getId(), item.getId(), 1);
+        orderService.cancelOrder(canceledOrderId);
+
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setOrderStatus(OrderStatus.CANCEL);
+        orderSearch.setMemberName("회원1");
+        orderSearch.setMinTotalPrice(12345);
+        orderSearch.setMaxTotalPrice(12345);
+
+        //when
+        List<OrderSummary> summaries = orderService.findOrderSummaries(orderSearch);
+
+        //then
+        assertEquals(1, summaries.size(), "조건에 맞는 주문 요약만 조회되어야 한다.");
+        assertEquals(canceledOrderId, summaries.get(0).getOrderId(), "취소된 주문만 조회되어야 한다.");
+        assertEquals(1, summaries.get(0).getItemCount(), "주문상품 수가 정확해야 한다.");
+    }
+
+    @Test
+    public void 주문_기간_상태_금액_검색() throws Exception {
+        //given
+        Member member = createMember();
+        Book item = createBook("테스트book", 12345, 10);
+
+        Long canceledOrderId = orderService.order(member.getId(), item.getId(), 1);
+        Long orderId = orderService.order(member.getId(), item.getId(), 1);
+        orderService.cancelOrder(canceledOrderId);
+
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setOrderStatus(OrderStatus.CANCEL);
+        orderSearch.setOrderDateFrom(LocalDate.now());
+        orderSearch.setOrderDateTo(LocalDate.now());
+        orderSearch.setMinTotalPrice(12345);
+        orderSearch.setMaxTotalPrice(12345);
+
+        //when
+        List<Order> orders = orderService.findOrders(orderSearch);
+
+        //then
+        assertEquals(1, orders.size(), "조건에 맞는 주문만 조회되어야 한다.");
+        assertEquals(canceledOrderId, orders.get(0).getId(), "취소된 주문만 조회되어야 한다.");
+        assertNotEquals(orderId, orders.get(0).getId());
     }
 
     private Book createBook(String name, int price, int stockQuantity) {